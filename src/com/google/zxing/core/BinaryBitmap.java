@@ -27,8 +27,14 @@ import com.google.zxing.core.common.BitMatrix;
  */
 public final class BinaryBitmap {
 
+  // Marks a row in rows that the binarizer could not binarize
+  private static final BitArray NO_ROW = new BitArray();
+
   private final Binarizer binarizer;
   private BitMatrix matrix;
+  // Rows binarized one at a time while there is no matrix, in the original polarity
+  private BitArray[] rows;
+  private boolean inverted;
 
   public BinaryBitmap(Binarizer binarizer) {
     if (binarizer == null) {
@@ -52,25 +58,59 @@ public final class BinaryBitmap {
   }
 
   /**
-   * Converts one row of luminance data to 1 bit data. May actually do the conversion, or return
-   * cached data. Callers should assume this method is expensive and call it as seldom as possible.
-   * This method is intended for decoding 1D barcodes and may choose to apply sharpening.
+   * Converts one row of luminance data to 1 bit data. Once the black matrix has been computed,
+   * the row is copied from it, so that 1D and 2D Readers share one binarization. Until then each
+   * row is binarized by the Binarizer, which may apply sharpening, the first time it is requested
+   * and kept for later requests. Callers should still call this as seldom as possible.
    *
    * @param y The row to fetch, which must be in [0, bitmap height)
    * @param row An optional preallocated array. If null or too small, it will be ignored.
-   *            If used, the Binarizer will call BitArray.clear(). Always use the returned object.
+   *            If used, it will be cleared. Always use the returned object.
    * @return The array of bits for this row (true means black).
    * @throws NotFoundException if row can't be binarized
    */
   public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
-    return binarizer.getBlackRow(y, row);
+    if (matrix != null) {
+      return matrix.getRow(y, row);
+    }
+    if (rows == null) {
+      rows = new BitArray[getHeight()];
+    }
+    BitArray blackRow = rows[y];
+    if (blackRow == null) {
+      try {
+        blackRow = binarizer.getBlackRow(y, null);
+      } catch (NotFoundException nfe) {
+        rows[y] = NO_ROW;
+        throw nfe;
+      }
+      rows[y] = blackRow;
+    } else if (blackRow == NO_ROW) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+
+    int width = getWidth();
+    if (row == null || row.getSize() < width) {
+      row = new BitArray(width);
+    } else {
+      row.clear();
+    }
+    int[] bits = blackRow.getBitArray();
+    int rowSize = (width + 31) / 32;
+    for (int x = 0; x < rowSize; x++) {
+      row.setBulk(x * 32, bits[x]);
+    }
+    if (inverted) {
+      row.flip();
+    }
+    return row;
   }
 
   /**
    * Converts a 2D array of luminance data to 1 bit. As above, assume this method is expensive
    * and do not call it repeatedly. This method is intended for decoding 2D barcodes and may or
-   * may not apply sharpening. Therefore, a row from this matrix may not be identical to one
-   * fetched using getBlackRow(), so don't mix and match between them.
+   * may not apply sharpening. Rows fetched with getBlackRow() before it is first called may
+   * therefore not be identical to those of the matrix; those fetched after are.
    *
    * @return The 2D array of bits for the image (true means black).
    * @throws NotFoundException if image can't be binarized to make a matrix
@@ -83,10 +123,36 @@ public final class BinaryBitmap {
     // 2. This work will only be done once even if the caller installs multiple 2D Readers.
     if (matrix == null) {
       matrix = binarizer.getBlackMatrix();
+      if (inverted) {
+        matrix.flip();
+      }
+      rows = null;
     }
     return matrix;
   }
 
+  /**
+   * Inverts this bitmap in place, so that light pixels read as black. A black matrix already
+   * computed is flipped word-wise rather than binarized again, and cached rows are flipped as
+   * they are fetched. Bitmaps derived from this one afterwards are inverted too. Calling this
+   * again restores the original polarity, which callers that share the bitmap should do once
+   * they are done.
+   */
+  public void invert() {
+    inverted = !inverted;
+    if (matrix != null) {
+      matrix.flip();
+    }
+  }
+
+  /**
+   * @return Whether this bitmap is inverted.
+   * @see #invert()
+   */
+  public boolean isInverted() {
+    return inverted;
+  }
+
   /**
    * @return Whether this bitmap can be cropped.
    */
@@ -96,7 +162,9 @@ public final class BinaryBitmap {
 
   /**
    * Returns a new object with cropped image data. Implementations may keep a reference to the
-   * original data rather than a copy. Only callable if isCropSupported() is true.
+   * original data rather than a copy. Only callable if isCropSupported() is true. If the black
+   * matrix has been computed, the new object starts with the matching region of it rather than
+   * binarizing again.
    *
    * @param left The left coordinate, which must be in [0,getWidth())
    * @param top The top coordinate, which must be in [0,getHeight())
@@ -106,7 +174,26 @@ public final class BinaryBitmap {
    */
   public BinaryBitmap crop(int left, int top, int width, int height) {
     LuminanceSource newSource = binarizer.getLuminanceSource().crop(left, top, width, height);
-    return new BinaryBitmap(binarizer.createBinarizer(newSource));
+    BinaryBitmap derived = derive(newSource);
+    if (matrix != null) {
+      derived.matrix = matrix.getRegion(left, top, width, height);
+    }
+    return derived;
+  }
+
+  /**
+   * Returns a new object at half the width and height, each luminance averaged over a 2x2 block.
+   * Calling this again on the result gives the next coarser level, reusing the luminance
+   * computed for this one.
+   *
+   * @return A downsampled version of this object.
+   * @see DownsampledLuminanceSource
+   */
+  public BinaryBitmap downsample() {
+    LuminanceSource source = binarizer.getLuminanceSource();
+    LuminanceSource newSource = source instanceof DownsampledLuminanceSource ?
+        ((DownsampledLuminanceSource) source).downsample() : new DownsampledLuminanceSource(source);
+    return derive(newSource);
   }
 
   /**
@@ -118,13 +205,18 @@ public final class BinaryBitmap {
 
   /**
    * Returns a new object with rotated image data by 90 degrees counterclockwise.
-   * Only callable if {@link #isRotateSupported()} is true.
+   * Only callable if {@link #isRotateSupported()} is true. If the black matrix has been
+   * computed, the new object starts with it rotated rather than binarizing again.
    *
    * @return A rotated version of this object.
    */
   public BinaryBitmap rotateCounterClockwise() {
     LuminanceSource newSource = binarizer.getLuminanceSource().rotateCounterClockwise();
-    return new BinaryBitmap(binarizer.createBinarizer(newSource));
+    BinaryBitmap derived = derive(newSource);
+    if (matrix != null) {
+      derived.matrix = matrix.rotateCounterClockwise();
+    }
+    return derived;
   }
 
   /**
@@ -135,7 +227,13 @@ public final class BinaryBitmap {
    */
   public BinaryBitmap rotateCounterClockwise45() {
     LuminanceSource newSource = binarizer.getLuminanceSource().rotateCounterClockwise45();
-    return new BinaryBitmap(binarizer.createBinarizer(newSource));
+    return derive(newSource);
+  }
+
+  private BinaryBitmap derive(LuminanceSource newSource) {
+    BinaryBitmap derived = new BinaryBitmap(binarizer.createBinarizer(newSource));
+    derived.inverted = inverted;
+    return derived;
   }
 
   @Override
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link LuminanceSource} over the pixels of an image in a heap or direct {@link ByteBuffer},
+ * as server-side image pipelines hand them over. The pixels are not copied up front: luminance
+ * is computed only for the rows requested through {@link #getRow(int, byte[])}, or for the whole
+ * image on the first call to {@link #getMatrix()}, which then keeps it. It does not support
+ * rotation.
+ *
+ * The pixels are read from the buffer's position at construction onwards; the buffer's own
+ * position and limit are left alone. Its content must not change while the source is in use.
+ */
+public final class ByteBufferLuminanceSource extends LuminanceSource {
+
+  /**
+   * Layout of a pixel in the buffer, one byte per channel.
+   */
+  public enum PixelFormat {
+
+    GRAY(1, 0, 0, 0),
+    RGB(3, 0, 1, 2),
+    BGR(3, 2, 1, 0),
+    RGBA(4, 0, 1, 2),
+    BGRA(4, 2, 1, 0),
+    ARGB(4, 1, 2, 3);
+
+    private final int bytesPerPixel;
+    private final int red;
+    private final int green;
+    private final int blue;
+
+    PixelFormat(int bytesPerPixel, int red, int green, int blue) {
+      this.bytesPerPixel = bytesPerPixel;
+      this.red = red;
+      this.green = green;
+      this.blue = blue;
+    }
+
+    public int getBytesPerPixel() {
+      return bytesPerPixel;
+    }
+
+  }
+
+  private final ByteBuffer pixels;
+  // Used to bulk read from direct buffers without moving the position of pixels
+  private final ByteBuffer view;
+  private final PixelFormat format;
+  private final int offset;
+  private final int rowStride;
+  private final int left;
+  private final int top;
+  private byte[] matrix;
+  private boolean matrixComputed;
+  private byte[] pixelRow;
+
+  /**
+   * @param pixels image data, starting at its position
+   * @param format layout of each pixel
+   * @param width width of the image in pixels
+   * @param height height of the image in pixels
+   * @param rowStride distance in bytes between the starts of successive rows
+   */
+  public ByteBufferLuminanceSource(ByteBuffer pixels, PixelFormat format, int width, int height, int rowStride) {
+    this(pixels, format, width, height, rowStride, null);
+  }
+
+  /**
+   * @param pixels image data, starting at its position
+   * @param format layout of each pixel
+   * @param width width of the image in pixels
+   * @param height height of the image in pixels
+   * @param rowStride distance in bytes between the starts of successive rows
+   * @param matrix if not null and at least width * height bytes long, filled by
+   *  {@link #getMatrix()} instead of a new array. Pass the one of a source no longer in use
+   *  to decode a stream of images without allocating for each.
+   */
+  public ByteBufferLuminanceSource(ByteBuffer pixels,
+                                   PixelFormat format,
+                                   int width,
+                                   int height,
+                                   int rowStride,
+                                   byte[] matrix) {
+    this(pixels, format, pixels.position(), rowStride, 0, 0, width, height);
+    if (rowStride < width * format.bytesPerPixel) {
+      throw new IllegalArgumentException("Row stride is smaller than a row of pixels.");
+    }
+    if ((long) offset + (long) (height - 1) * rowStride + width * format.bytesPerPixel > pixels.limit()) {
+      throw new IllegalArgumentException("Image data does not fit within buffer.");
+    }
+    if (matrix != null && matrix.length >= width * height) {
+      this.matrix = matrix;
+    }
+  }
+
+  private ByteBufferLuminanceSource(ByteBuffer pixels,
+                                    PixelFormat format,
+                                    int offset,
+                                    int rowStride,
+                                    int left,
+                                    int top,
+                                    int width,
+                                    int height) {
+    super(width, height);
+    this.pixels = pixels;
+    this.view = pixels.hasArray() ? null : pixels.duplicate();
+    this.format = format;
+    this.offset = offset;
+    this.rowStride = rowStride;
+    this.left = left;
+    this.top = top;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    if (matrixComputed) {
+      System.arraycopy(matrix, y * width, row, 0, width);
+    } else {
+      computeRow(y, row, 0);
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    if (!matrixComputed) {
+      int width = getWidth();
+      int height = getHeight();
+      if (matrix == null) {
+        matrix = new byte[width * height];
+      }
+      for (int y = 0; y < height; y++) {
+        computeRow(y, matrix, y * width);
+      }
+      matrixComputed = true;
+    }
+    return matrix;
+  }
+
+  private void computeRow(int y, byte[] luminances, int luminancesOffset) {
+    int width = getWidth();
+    int bytesPerPixel = format.bytesPerPixel;
+    int rowOffset = offset + (top + y) * rowStride + left * bytesPerPixel;
+    int rowLength = width * bytesPerPixel;
+
+    if (format == PixelFormat.GRAY) {
+      if (view == null) {
+        System.arraycopy(pixels.array(), pixels.arrayOffset() + rowOffset, luminances, luminancesOffset, width);
+      } else {
+        view.position(rowOffset);
+        view.get(luminances, luminancesOffset, width);
+      }
+      return;
+    }
+
+    byte[] source;
+    int sourceOffset;
+    if (view == null) {
+      source = pixels.array();
+      sourceOffset = pixels.arrayOffset() + rowOffset;
+    } else {
+      if (pixelRow == null || pixelRow.length < rowLength) {
+        pixelRow = new byte[rowLength];
+      }
+      view.position(rowOffset);
+      view.get(pixelRow, 0, rowLength);
+      source = pixelRow;
+      sourceOffset = 0;
+    }
+    int red = sourceOffset + format.red;
+    int green = sourceOffset + format.green;
+    int blue = sourceOffset + format.blue;
+    for (int x = 0; x < width; x++) {
+      int r = source[red] & 0xff;
+      int g = source[green] & 0xff;
+      int b = source[blue] & 0xff;
+      // Calculate luminance cheaply, favoring green, as RGBLuminanceSource does.
+      luminances[luminancesOffset + x] = (byte) ((r + 2 * g + b) / 4);
+      red += bytesPerPixel;
+      green += bytesPerPixel;
+      blue += bytesPerPixel;
+    }
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    if (left < 0 || top < 0 || left + width > getWidth() || top + height > getHeight()) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    return new ByteBufferLuminanceSource(pixels,
+                                         format,
+                                         offset,
+                                         rowStride,
+                                         this.left + left,
+                                         this.top + top,
+                                         width,
+                                         height);
+  }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core;
+
+import java.util.Map;
+
+/**
+ * Bounds the time a decode may take, and lets another thread cancel it. Passed to readers as
+ * {@link DecodeHintType#DECODE_BUDGET}, it is checked in their longest loops, which give up with a
+ * {@link NotFoundException} once the budget is exhausted.
+ *
+ * Since hints are usually set once for continuous scanning, the same budget is meant to be
+ * {@link #restart() restarted} before each decode rather than replaced. It may be cancelled
+ * from any thread.
+ */
+public final class DecodeBudget {
+
+  private final long budgetNanos;
+  private volatile long deadline;
+  private volatile boolean cancelled;
+
+  /**
+   * Creates a budget and starts it.
+   *
+   * @param budgetMs time a decode may take, from now and from each {@link #restart()}
+   */
+  public DecodeBudget(long budgetMs) {
+    budgetNanos = budgetMs > Long.MAX_VALUE / 1000000L ? Long.MAX_VALUE : budgetMs * 1000000L;
+    restart();
+  }
+
+  /**
+   * Starts the full budget again from now, and clears any cancellation.
+   */
+  public void restart() {
+    deadline = System.nanoTime() + budgetNanos;
+    cancelled = false;
+  }
+
+  /**
+   * Makes the decode using this budget give up at its next check.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * @return true if the decode using this budget should give up
+   */
+  public boolean isExhausted() {
+    // Compared as a difference, which stays correct when nanoTime() overflows
+    return cancelled || System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * @param hints decode hints if applicable
+   * @return the budget in the hints, or null if there is none
+   */
+  public static DecodeBudget fromHints(Map<DecodeHintType,?> hints) {
+    return hints == null ? null : (DecodeBudget) hints.get(DecodeHintType.DECODE_BUDGET);
+  }
+
+  /**
+   * @param budget budget to check, or null if there is none
+   * @throws NotFoundException if the budget is exhausted
+   */
+  public static void check(DecodeBudget budget) throws NotFoundException {
+    if (budget != null && budget.isExhausted()) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+  }
+
+}
@@ -98,6 +98,39 @@ public enum DecodeHintType {
    */
   ALLOWED_EAN_EXTENSIONS(int[].class),
 
+  /**
+   * Also look for symbols printed light on dark, if none is found as is. The black matrix
+   * already computed is inverted in place rather than binarized again, and only readers that
+   * found nothing are run a second time. Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  TRY_INVERTED(Void.class),
+
+  /**
+   * Give up once the time allowed for the decode is used up, or it is cancelled.
+   * Maps to a {@link DecodeBudget}.
+   */
+  DECODE_BUDGET(DecodeBudget.class),
+
+  /**
+   * Record stage timings and outcome counts of decoding. Maps to a {@link DecodeMetrics}.
+   */
+  DECODE_METRICS(DecodeMetrics.class),
+
+  /**
+   * Also scan for 1D symbols along lines tilted by 15 to 75 degrees either way, in steps of 15,
+   * if none is found in rows, to read symbols held at an angle without rotating the whole image.
+   * Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  TRY_ANGLED(Void.class),
+
+  /**
+   * Only return a 1D result once this many scanlines of the same image have decoded to the same
+   * format and text, to reject misreads within a single frame rather than by waiting for several
+   * frames to agree. The count reached is given as {@link ResultMetadataType#ROW_AGREEMENT}.
+   * Maps to an {@link Integer}; 1 or less behaves as if the hint were absent.
+   */
+  ROW_CONSENSUS(Integer.class),
+
   // End of enumeration values.
   ;
 
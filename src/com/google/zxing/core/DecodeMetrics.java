@@ -0,0 +1,274 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Accumulates how long each stage of decoding takes and how often decodes get how far, to find
+ * out where time goes and where frames fail on a given device. Passed to readers as
+ * {@link DecodeHintType#DECODE_METRICS}; without it, instrumented code only pays for a null check.
+ *
+ * Stage times are inclusive: {@link Stage#DETECTION} also covers {@link Stage#SAMPLING} where a
+ * detector reports that separately. May be updated and read from any thread; read it through
+ * {@link #snapshot()}.
+ */
+public final class DecodeMetrics {
+
+  /**
+   * A timed stage of decoding.
+   */
+  public enum Stage {
+    /** Converting luminance to a black matrix, or to a black row for 1D formats. */
+    BINARIZATION,
+    /** Locating a 2D symbol, including sampling its grid. */
+    DETECTION,
+    /** Sampling the grid of a located symbol, where the detector reports it separately. */
+    SAMPLING,
+    /** Finding and reading a 1D symbol in a row. */
+    ROW_DECODING,
+    /** Reed-Solomon error correction of the codewords. */
+    ERROR_CORRECTION,
+    /** Parsing the corrected codewords into text. */
+    BITSTREAM_PARSING,
+  }
+
+  /**
+   * A counted event. All of them are counted overall; those from {@link #ATTEMPTS} on also per
+   * reader.
+   */
+  public enum Counter {
+    /** Images given to {@link MultiFormatReader}. */
+    FRAMES,
+    /** Codewords corrected by Reed-Solomon error correction. */
+    ERRORS_CORRECTED,
+    /** Decodes of an image by one reader. */
+    ATTEMPTS,
+    /** Attempts that returned a result. */
+    RESULTS,
+    /** Attempts that failed with a {@link NotFoundException}. */
+    NOT_FOUND,
+    /** Attempts that failed with a {@link FormatException}. */
+    FORMAT_ERRORS,
+    /** Attempts that failed with a {@link ChecksumException}. */
+    CHECKSUM_ERRORS,
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+  private static final Counter[] COUNTERS = Counter.values();
+
+  private final AtomicLongArray stageNanos = new AtomicLongArray(STAGES.length);
+  private final AtomicLongArray stageCounts = new AtomicLongArray(STAGES.length);
+  private final AtomicLongArray counts = new AtomicLongArray(COUNTERS.length);
+  private final ConcurrentMap<String,AtomicLongArray> readerCounts = new ConcurrentHashMap<>();
+
+  /**
+   * @param hints decode hints if applicable
+   * @return the metrics in the hints, or null if there are none
+   */
+  public static DecodeMetrics fromHints(Map<DecodeHintType,?> hints) {
+    return hints == null ? null : (DecodeMetrics) hints.get(DecodeHintType.DECODE_METRICS);
+  }
+
+  /**
+   * @param metrics metrics to time a stage for, or null if there are none
+   * @return start time of the stage, to pass to {@link #stop(DecodeMetrics, Stage, long)}
+   */
+  public static long start(DecodeMetrics metrics) {
+    return metrics == null ? 0L : System.nanoTime();
+  }
+
+  /**
+   * Records a stage as having taken the time since {@code start}.
+   *
+   * @param metrics metrics to record to, or null if there are none
+   * @param stage stage to record
+   * @param start value {@link #start(DecodeMetrics)} returned when the stage started
+   */
+  public static void stop(DecodeMetrics metrics, Stage stage, long start) {
+    if (metrics != null) {
+      metrics.stageNanos.addAndGet(stage.ordinal(), System.nanoTime() - start);
+      metrics.stageCounts.incrementAndGet(stage.ordinal());
+    }
+  }
+
+  /**
+   * @param metrics metrics to record to, or null if there are none
+   * @param counter counter to add to
+   * @param count amount to add
+   */
+  public static void count(DecodeMetrics metrics, Counter counter, long count) {
+    if (metrics != null) {
+      metrics.counts.addAndGet(counter.ordinal(), count);
+    }
+  }
+
+  /**
+   * Records an attempt by a reader to decode an image.
+   *
+   * @param reader name of the reader
+   * @param failure why the attempt failed, or null if it returned a result
+   */
+  void countAttempt(String reader, ReaderException failure) {
+    AtomicLongArray forReader = readerCounts.get(reader);
+    if (forReader == null) {
+      AtomicLongArray newForReader = new AtomicLongArray(COUNTERS.length);
+      forReader = readerCounts.putIfAbsent(reader, newForReader);
+      if (forReader == null) {
+        forReader = newForReader;
+      }
+    }
+    Counter outcome;
+    if (failure == null) {
+      outcome = Counter.RESULTS;
+    } else if (failure instanceof FormatException) {
+      outcome = Counter.FORMAT_ERRORS;
+    } else if (failure instanceof ChecksumException) {
+      outcome = Counter.CHECKSUM_ERRORS;
+    } else {
+      outcome = Counter.NOT_FOUND;
+    }
+    counts.incrementAndGet(Counter.ATTEMPTS.ordinal());
+    counts.incrementAndGet(outcome.ordinal());
+    forReader.incrementAndGet(Counter.ATTEMPTS.ordinal());
+    forReader.incrementAndGet(outcome.ordinal());
+  }
+
+  /**
+   * Clears everything recorded so far.
+   */
+  public void reset() {
+    for (int i = 0; i < STAGES.length; i++) {
+      stageNanos.set(i, 0L);
+      stageCounts.set(i, 0L);
+    }
+    for (int i = 0; i < COUNTERS.length; i++) {
+      counts.set(i, 0L);
+    }
+    readerCounts.clear();
+  }
+
+  /**
+   * @return a copy of what has been recorded so far. Updates made while it is taken may be
+   *  included in part.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * What a {@link DecodeMetrics} had recorded at one point.
+   */
+  public static final class Snapshot {
+
+    private final long[] stageNanos = new long[STAGES.length];
+    private final long[] stageCounts = new long[STAGES.length];
+    private final long[] counts = new long[COUNTERS.length];
+    private final Map<String,long[]> readerCounts = new TreeMap<>();
+
+    private Snapshot(DecodeMetrics metrics) {
+      for (int i = 0; i < STAGES.length; i++) {
+        stageNanos[i] = metrics.stageNanos.get(i);
+        stageCounts[i] = metrics.stageCounts.get(i);
+      }
+      for (int i = 0; i < COUNTERS.length; i++) {
+        counts[i] = metrics.counts.get(i);
+      }
+      for (Map.Entry<String,AtomicLongArray> entry : metrics.readerCounts.entrySet()) {
+        long[] forReader = new long[COUNTERS.length];
+        for (int i = 0; i < COUNTERS.length; i++) {
+          forReader[i] = entry.getValue().get(i);
+        }
+        readerCounts.put(entry.getKey(), forReader);
+      }
+    }
+
+    /**
+     * @param stage stage to look up
+     * @return total time spent in the stage, in nanoseconds
+     */
+    public long getStageNanos(Stage stage) {
+      return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * @param stage stage to look up
+     * @return number of times the stage was run
+     */
+    public long getStageCount(Stage stage) {
+      return stageCounts[stage.ordinal()];
+    }
+
+    /**
+     * @param counter counter to look up
+     * @return its count over all readers
+     */
+    public long getCount(Counter counter) {
+      return counts[counter.ordinal()];
+    }
+
+    /**
+     * @return names of the readers that made attempts, in order
+     */
+    public Set<String> getReaders() {
+      return Collections.unmodifiableSet(readerCounts.keySet());
+    }
+
+    /**
+     * @param reader name of the reader
+     * @param counter counter to look up, one counted per reader
+     * @return its count for the reader, or 0 if the reader made no attempts
+     */
+    public long getCount(String reader, Counter counter) {
+      long[] forReader = readerCounts.get(reader);
+      return forReader == null ? 0L : forReader[counter.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder();
+      for (Stage stage : STAGES) {
+        long count = stageCounts[stage.ordinal()];
+        if (count > 0) {
+          long nanos = stageNanos[stage.ordinal()];
+          result.append(stage).append(": ").append(nanos / 1000000L).append(" ms in ")
+              .append(count).append(" runs, ").append(nanos / count / 1000L).append(" us each\n");
+        }
+      }
+      for (Counter counter : COUNTERS) {
+        result.append(counter).append(": ").append(counts[counter.ordinal()]).append('\n');
+      }
+      for (Map.Entry<String,long[]> entry : readerCounts.entrySet()) {
+        long[] forReader = entry.getValue();
+        result.append(entry.getKey()).append(':');
+        for (int i = Counter.ATTEMPTS.ordinal(); i < COUNTERS.length; i++) {
+          result.append(' ').append(COUNTERS[i]).append('=').append(forReader[i]);
+        }
+        result.append('\n');
+      }
+      return result.toString();
+    }
+
+  }
+
+}
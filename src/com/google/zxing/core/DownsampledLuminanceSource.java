@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core;
+
+/**
+ * A wrapper implementation of {@link LuminanceSource} at half the width and height of another,
+ * each luminance being the average of a 2x2 block of the original. Successive calls to
+ * {@link #downsample()} build a pyramid of coarser levels, so that large barcodes in high
+ * resolution images can be located from a fraction of the pixels.
+ *
+ * The downsampled matrix is computed on the first call to {@link #getMatrix()} and kept;
+ * until then rows are computed from the delegate on demand.
+ */
+public final class DownsampledLuminanceSource extends LuminanceSource {
+
+  private final LuminanceSource delegate;
+  private final int scale;
+  private byte[] matrix;
+  private DownsampledLuminanceSource downsampled;
+
+  public DownsampledLuminanceSource(LuminanceSource delegate) {
+    super(delegate.getWidth() / 2, delegate.getHeight() / 2);
+    this.delegate = delegate;
+    this.scale = delegate instanceof DownsampledLuminanceSource ?
+        2 * ((DownsampledLuminanceSource) delegate).scale : 2;
+  }
+
+  /**
+   * @return factor by which coordinates in this source must be multiplied to give coordinates
+   *  in the original, full resolution source
+   */
+  public int getScale() {
+    return scale;
+  }
+
+  /**
+   * @return the next coarser level, at half the width and height of this one
+   */
+  public DownsampledLuminanceSource downsample() {
+    if (downsampled == null) {
+      downsampled = new DownsampledLuminanceSource(this);
+    }
+    return downsampled;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    if (matrix != null) {
+      System.arraycopy(matrix, y * width, row, 0, width);
+      return row;
+    }
+    byte[] upper = delegate.getRow(2 * y, null);
+    byte[] lower = delegate.getRow(2 * y + 1, null);
+    for (int x = 0; x < width; x++) {
+      int x2 = 2 * x;
+      int sum = (upper[x2] & 0xFF) + (upper[x2 + 1] & 0xFF) + (lower[x2] & 0xFF) + (lower[x2 + 1] & 0xFF);
+      row[x] = (byte) (sum >> 2);
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    if (matrix == null) {
+      int width = getWidth();
+      int height = getHeight();
+      int sourceWidth = delegate.getWidth();
+      byte[] source = delegate.getMatrix();
+      byte[] result = new byte[width * height];
+      for (int y = 0; y < height; y++) {
+        int upper = 2 * y * sourceWidth;
+        int lower = upper + sourceWidth;
+        int offset = y * width;
+        for (int x = 0; x < width; x++) {
+          int x2 = 2 * x;
+          int sum = (source[upper + x2] & 0xFF) + (source[upper + x2 + 1] & 0xFF) +
+              (source[lower + x2] & 0xFF) + (source[lower + x2 + 1] & 0xFF);
+          result[offset + x] = (byte) (sum >> 2);
+        }
+      }
+      matrix = result;
+    }
+    return matrix;
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return delegate.isCropSupported();
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    return new DownsampledLuminanceSource(delegate.crop(2 * left, 2 * top, 2 * width, 2 * height));
+  }
+
+}
@@ -44,6 +44,13 @@ public enum EncodeHintType {
    */
   DATA_MATRIX_SHAPE,
 
+  /**
+   * Specifies whether to choose the Data Matrix encodation modes giving the fewest codewords, and so
+   * the smallest symbol, rather than those of the look-ahead heuristic of the specification
+   * (type {@link Boolean}, or "true" or "false" {@link String} value).
+   */
+  DATA_MATRIX_COMPACT,
+
   /**
    * Specifies a minimum barcode size (type {@link Dimension}). Only applicable to Data Matrix now.
    *
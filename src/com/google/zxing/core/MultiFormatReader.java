@@ -166,15 +166,58 @@ public final class MultiFormatReader implements Reader {
 
   private Result decodeInternal(BinaryBitmap image) throws NotFoundException {
     if (readers != null) {
-      for (Reader reader : readers) {
+      DecodeBudget budget = DecodeBudget.fromHints(hints);
+      DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+      DecodeMetrics.count(metrics, DecodeMetrics.Counter.FRAMES, 1);
+      // Readers that did not find a symbol at all, and so may find an inverted one
+      int notFound = 0;
+      for (int i = 0; i < readers.length; i++) {
+        DecodeBudget.check(budget);
         try {
-          return reader.decode(image, hints);
+          return decode(readers[i], image, metrics);
+        } catch (NotFoundException nfe) {
+          notFound |= 1 << i;
         } catch (ReaderException re) {
           // continue
         }
       }
+      if (notFound != 0 && hints != null && hints.containsKey(DecodeHintType.TRY_INVERTED)) {
+        image.invert();
+        try {
+          for (int i = 0; i < readers.length; i++) {
+            if ((notFound & (1 << i)) != 0) {
+              DecodeBudget.check(budget);
+              try {
+                Result result = decode(readers[i], image, metrics);
+                result.putMetadata(ResultMetadataType.INVERTED, Boolean.TRUE);
+                return result;
+              } catch (ReaderException re) {
+                // continue
+              }
+            }
+          }
+        } finally {
+          image.invert();
+        }
+      }
     }
     throw NotFoundException.getNotFoundInstance();
   }
 
+  private Result decode(Reader reader, BinaryBitmap image, DecodeMetrics metrics) throws ReaderException {
+    if (metrics == null) {
+      return reader.decode(image, hints);
+    }
+    String name = reader.getClass().getSimpleName();
+    Result result;
+    try {
+      result = reader.decode(image, hints);
+    } catch (ReaderException re) {
+      metrics.countAttempt(name, re);
+      throw re;
+    }
+    metrics.countAttempt(name, null);
+    return result;
+  }
+
 }
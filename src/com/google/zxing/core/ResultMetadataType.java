@@ -93,5 +93,17 @@ public enum ResultMetadataType {
    * parity is given with it.
    */
   STRUCTURED_APPEND_PARITY,
+
+  /**
+   * Present, as {@link Boolean#TRUE}, if the symbol is light on dark and was only found by
+   * inverting the image as {@link DecodeHintType#TRY_INVERTED} allows.
+   */
+  INVERTED,
+
+  /**
+   * Number of scanlines of the image that decoded to this same result, when
+   * {@link DecodeHintType#ROW_CONSENSUS} asked for several. Maps to an {@link Integer}.
+   */
+  ROW_AGREEMENT,
   
 }
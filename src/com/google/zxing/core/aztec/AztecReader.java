@@ -19,6 +19,7 @@ package com.google.zxing.core.aztec;
 import com.google.zxing.core.BarcodeFormat;
 import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -28,6 +29,7 @@ import com.google.zxing.core.ResultPoint;
 import com.google.zxing.core.ResultPointCallback;
 import com.google.zxing.core.aztec.decoder.Decoder;
 import com.google.zxing.core.aztec.detector.Detector;
+import com.google.zxing.core.common.BitMatrix;
 import com.google.zxing.core.common.DecoderResult;
 
 import java.util.List;
@@ -58,13 +60,21 @@ public final class AztecReader implements Reader {
 
     NotFoundException notFoundException = null;
     FormatException formatException = null;
-    Detector detector = new Detector(image.getBlackMatrix());
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    BitMatrix matrix;
+    try {
+      matrix = image.getBlackMatrix();
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+    }
+    Detector detector = new Detector(matrix);
     ResultPoint[] points = null;
     DecoderResult decoderResult = null;
     try {
-      AztecDetectorResult detectorResult = detector.detect(false);
+      AztecDetectorResult detectorResult = detect(detector, false, metrics);
       points = detectorResult.getPoints();
-      decoderResult = new Decoder().decode(detectorResult);
+      decoderResult = new Decoder().decode(detectorResult, hints);
     } catch (NotFoundException e) {
       notFoundException = e;
     } catch (FormatException e) {
@@ -72,9 +82,9 @@ public final class AztecReader implements Reader {
     }
     if (decoderResult == null) {
       try {
-        AztecDetectorResult detectorResult = detector.detect(true);
+        AztecDetectorResult detectorResult = detect(detector, true, metrics);
         points = detectorResult.getPoints();
-        decoderResult = new Decoder().decode(detectorResult);
+        decoderResult = new Decoder().decode(detectorResult, hints);
       } catch (NotFoundException | FormatException e) {
         if (notFoundException != null) {
           throw notFoundException;
@@ -114,4 +124,14 @@ public final class AztecReader implements Reader {
     // do nothing
   }
 
+  private static AztecDetectorResult detect(Detector detector, boolean isMirror, DecodeMetrics metrics)
+      throws NotFoundException {
+    long start = DecodeMetrics.start(metrics);
+    try {
+      return detector.detect(isMirror);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.DETECTION, start);
+    }
+  }
+
 }
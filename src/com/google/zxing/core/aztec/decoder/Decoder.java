@@ -16,6 +16,8 @@
 
 package com.google.zxing.core.aztec.decoder;
 
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.aztec.AztecDetectorResult;
 import com.google.zxing.core.common.BitMatrix;
@@ -25,6 +27,7 @@ import com.google.zxing.core.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.core.common.reedsolomon.ReedSolomonException;
 
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * <p>The main class which implements Aztec Code decoding -- as opposed to locating and extracting
@@ -71,11 +74,29 @@ public final class Decoder {
   private AztecDetectorResult ddata;
 
   public DecoderResult decode(AztecDetectorResult detectorResult) throws FormatException {
+    return decode(detectorResult, null);
+  }
+
+  public DecoderResult decode(AztecDetectorResult detectorResult, Map<DecodeHintType,?> hints)
+      throws FormatException {
     ddata = detectorResult;
     BitMatrix matrix = detectorResult.getBits();
     boolean[] rawbits = extractBits(matrix);
-    boolean[] correctedBits = correctBits(rawbits);
-    String result = getEncodedData(correctedBits);
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    boolean[] correctedBits;
+    try {
+      correctedBits = correctBits(rawbits, metrics);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ERROR_CORRECTION, start);
+    }
+    start = DecodeMetrics.start(metrics);
+    String result;
+    try {
+      result = getEncodedData(correctedBits);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BITSTREAM_PARSING, start);
+    }
     return new DecoderResult(null, result, null, null);
   }
 
@@ -195,7 +216,7 @@ public final class Decoder {
    * @return the corrected array
    * @throws FormatException if the input contains too many errors
    */
-  private boolean[] correctBits(boolean[] rawbits) throws FormatException {
+  private boolean[] correctBits(boolean[] rawbits, DecodeMetrics metrics) throws FormatException {
     GenericGF gf;
     int codewordSize;
 
@@ -228,7 +249,8 @@ public final class Decoder {
 
     try {
       ReedSolomonDecoder rsDecoder = new ReedSolomonDecoder(gf);
-      rsDecoder.decode(dataWords, numECCodewords);
+      DecodeMetrics.count(metrics, DecodeMetrics.Counter.ERRORS_CORRECTED,
+          rsDecoder.decode(dataWords, numECCodewords));
     } catch (ReedSolomonException ex) {
       throw FormatException.getFormatInstance(ex);
     }
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.aztec.detector;
+
+import com.google.zxing.core.ResultPoint;
+import com.google.zxing.core.common.BitArray;
+import com.google.zxing.core.common.BitMatrix;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>This class attempts to find the bull's eyes of Aztec Codes anywhere in an image. Read
+ * through its center, a bull's eye shows at least seven runs of one module each:
+ * white/black/white/black/white/black/white, with the center module in the middle, bounded by
+ * the black outer ring of the bull's eye on both sides.</p>
+ *
+ * <p>Rows are read as run lengths, and each row section with these proportions is cross-checked
+ * vertically, horizontally again and diagonally, in the way
+ * {@link com.google.zxing.core.qrcode.detector.FinderPatternFinder} confirms QR Code finder
+ * patterns. Every confirmed bull's eye is reported, so several codes in one image are found.</p>
+ *
+ * <p>Like that class, it skips rows once it knows the module size: the center module is one
+ * module tall, so every row within it shows the pattern. Until a bull's eye is confirmed, modules
+ * may be as small as a pixel and every row is read; the rows following one that confirms a bull's
+ * eye are read too.</p>
+ *
+ * <p>This class is thread-safe but not reentrant. Each thread must allocate its own object.</p>
+ */
+public final class BullsEyeFinder {
+
+  private static final int PATTERN_RUNS = 7;
+  private static final int CENTER_RUN = PATTERN_RUNS / 2;
+  private static final int MIN_SKIP = 1; // 1 pixel/module times 1 module/center
+
+  private final BitMatrix image;
+  private final List<Candidate> possibleCenters;
+  private final int[] crossCheckStateCount;
+
+  public BullsEyeFinder(BitMatrix image) {
+    this.image = image;
+    this.possibleCenters = new ArrayList<>();
+    this.crossCheckStateCount = new int[PATTERN_RUNS];
+  }
+
+  /**
+   * @return centers of the bull's eyes found, most often confirmed first; empty if none
+   */
+  public ResultPoint[] find() {
+    possibleCenters.clear();
+    int width = image.getWidth();
+    int[] runs = new int[width + 1];
+    BitArray row = new BitArray(width);
+    int height = image.getHeight();
+    int ySkip = MIN_SKIP;
+    float minModuleSize = Float.MAX_VALUE;
+    boolean found = false;
+    // Rows within a bull's eye's center are all read, so that its center is averaged over them
+    for (int y = 0; y < height; y += found ? 1 : ySkip) {
+      float moduleSize = scanRow(y, row, runs);
+      found = moduleSize < Float.MAX_VALUE;
+      if (moduleSize < minModuleSize) {
+        // Other codes are most likely printed at the same scale; stay within three quarters of
+        // a module so that no center row is stepped over
+        minModuleSize = moduleSize;
+        ySkip = Math.max(MIN_SKIP, (int) (3.0f * moduleSize / 4.0f));
+      }
+    }
+    return getCenters();
+  }
+
+  /**
+   * Like {@link #find()}, but reads rows from the middle of the image outwards, alternately above
+   * and below it, and stops once the first bull's eye confirmed has been read over all rows of
+   * its center module. A code aimed at is found after reading a few rows rather than all of them.
+   *
+   * @return centers of the bull's eyes found nearest the middle row, most often confirmed first;
+   *  empty if none, in which case every row has been read
+   */
+  public ResultPoint[] findNearestToMiddle() {
+    possibleCenters.clear();
+    int width = image.getWidth();
+    int[] runs = new int[width + 1];
+    BitArray row = new BitArray(width);
+    int height = image.getHeight();
+    int middle = height / 2;
+    float stopDistance = Float.MAX_VALUE;
+    for (int distance = 0; distance <= middle && distance <= stopDistance; distance++) {
+      for (int side = distance == 0 ? 1 : -1; side <= 1; side += 2) {
+        int y = middle + side * distance;
+        if (y < height) {
+          float moduleSize = scanRow(y, row, runs);
+          if (moduleSize < Float.MAX_VALUE && stopDistance == Float.MAX_VALUE) {
+            // The rows closer to the middle did not show this center, so it lies no further out
+            // than a module from here
+            stopDistance = distance + moduleSize;
+          }
+        }
+      }
+    }
+    return getCenters();
+  }
+
+  /**
+   * Reads a row as run lengths and cross-checks each section of it that looks like the center of
+   * a bull's eye.
+   *
+   * @param y the row
+   * @param row buffer for the row
+   * @param runs buffer for its run lengths
+   * @return smallest module size of the bull's eyes confirmed in the row, or
+   *  {@link Float#MAX_VALUE} if there are none
+   */
+  private float scanRow(int y, BitArray row, int[] runs) {
+    int width = image.getWidth();
+    row = image.getRow(y, row);
+    // Run lengths of the row; runs[0] is white, possibly empty
+    int numRuns = 0;
+    int x = 0;
+    boolean black = false;
+    while (x < width) {
+      int end = black ? row.getNextUnset(x) : row.getNextSet(x);
+      runs[numRuns++] = end - x;
+      x = end;
+      black = !black;
+    }
+    float minModuleSize = Float.MAX_VALUE;
+    // A pattern starts with a white run, at an even index, and needs a black run on each side
+    for (int start = 2; start + PATTERN_RUNS < numRuns; start += 2) {
+      if (foundPatternCross(runs, start) && isBounded(runs, start)) {
+        int end = 0;
+        for (int i = 0; i < start + PATTERN_RUNS; i++) {
+          end += runs[i];
+        }
+        minModuleSize = Math.min(minModuleSize, handlePossibleCenter(runs, start, y, end));
+      }
+    }
+    return minModuleSize;
+  }
+
+  private ResultPoint[] getCenters() {
+    Collections.sort(possibleCenters, new Comparator<Candidate>() {
+      @Override
+      public int compare(Candidate a, Candidate b) {
+        return b.count - a.count;
+      }
+    });
+    ResultPoint[] centers = new ResultPoint[possibleCenters.size()];
+    for (int i = 0; i < centers.length; i++) {
+      Candidate candidate = possibleCenters.get(i);
+      centers[i] = new ResultPoint(candidate.x, candidate.y);
+    }
+    return centers;
+  }
+
+  /**
+   * @param stateCount run lengths just read
+   * @param start index of the first of the {@link #PATTERN_RUNS} runs to check
+   * @return true iff the runs are close enough to equal length to be the center of a bull's eye
+   */
+  private static boolean foundPatternCross(int[] stateCount, int start) {
+    int totalModuleSize = 0;
+    for (int i = start; i < start + PATTERN_RUNS; i++) {
+      int count = stateCount[i];
+      if (count == 0) {
+        return false;
+      }
+      totalModuleSize += count;
+    }
+    if (totalModuleSize < PATTERN_RUNS) {
+      return false;
+    }
+    float moduleSize = totalModuleSize / (float) PATTERN_RUNS;
+    float maxVariance = moduleSize / 2.0f;
+    // Allow less than 50% variance from 1-1-1-1-1-1-1 proportions
+    for (int i = start; i < start + PATTERN_RUNS; i++) {
+      if (Math.abs(moduleSize - stateCount[i]) >= maxVariance) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return true iff the black runs on either side of the pattern are at least half a module
+   *  wide; they are the outer ring of the bull's eye, possibly merged with the modules around it
+   */
+  private static boolean isBounded(int[] stateCount, int start) {
+    int total = 0;
+    for (int i = start; i < start + PATTERN_RUNS; i++) {
+      total += stateCount[i];
+    }
+    int minCount = total / (2 * PATTERN_RUNS);
+    return stateCount[start - 1] >= minCount && stateCount[start + PATTERN_RUNS] >= minCount;
+  }
+
+  private int[] getCrossCheckStateCount() {
+    for (int i = 0; i < PATTERN_RUNS; i++) {
+      crossCheckStateCount[i] = 0;
+    }
+    return crossCheckStateCount;
+  }
+
+  /**
+   * Reads the runs through a point of the center module in one direction.
+   *
+   * @param centerX x position inside the center module
+   * @param centerY y position inside the center module
+   * @param dx x step, -1, 0 or 1
+   * @param dy y step, -1, 0 or 1
+   * @param maxCount maximum reasonable length of any run, based on the row scan
+   * @return offset in steps from the given point to the middle of the center run, or
+   *  {@link Float#NaN} if the runs are not those of a bull's eye
+   */
+  private float crossCheck(int centerX, int centerY, int dx, int dy, int maxCount) {
+    int[] stateCount = getCrossCheckStateCount();
+
+    // Count back from the center; the state's color is black for odd states
+    int x = centerX;
+    int y = centerY;
+    for (int state = CENTER_RUN; state >= 0; state--) {
+      boolean black = (state & 1) == 1;
+      while (image.get(x, y) == black) {
+        if (++stateCount[state] > maxCount) {
+          return Float.NaN;
+        }
+        x -= dx;
+        y -= dy;
+        if (!isInside(x, y)) {
+          return Float.NaN;
+        }
+      }
+    }
+
+    // Now also count forward from the center
+    x = centerX + dx;
+    y = centerY + dy;
+    int steps = 1;
+    for (int state = CENTER_RUN; state < PATTERN_RUNS; state++) {
+      boolean black = (state & 1) == 1;
+      while (isInside(x, y) && image.get(x, y) == black) {
+        if (++stateCount[state] > maxCount) {
+          return Float.NaN;
+        }
+        x += dx;
+        y += dy;
+        steps++;
+      }
+      if (!isInside(x, y)) {
+        return Float.NaN;
+      }
+    }
+    if (!foundPatternCross(stateCount, 0)) {
+      return Float.NaN;
+    }
+    int afterCenter = 0;
+    for (int state = CENTER_RUN + 1; state < PATTERN_RUNS; state++) {
+      afterCenter += stateCount[state];
+    }
+    return steps - afterCenter - stateCount[CENTER_RUN] / 2.0f;
+  }
+
+  private boolean isInside(int x, int y) {
+    return x >= 0 && x < image.getWidth() && y >= 0 && y < image.getHeight();
+  }
+
+  /**
+   * Cross-checks a row section that looks like the center of a bull's eye and records its center
+   * if the checks pass.
+   *
+   * @param stateCount run lengths of the row
+   * @param start index of the first run of the section
+   * @param y the row
+   * @param end position just past the section
+   * @return module size of the bull's eye, or {@link Float#MAX_VALUE} if the checks failed
+   */
+  private float handlePossibleCenter(int[] stateCount, int start, int y, int end) {
+    int stateCountTotal = 0;
+    for (int i = start; i < start + PATTERN_RUNS; i++) {
+      stateCountTotal += stateCount[i];
+    }
+    int afterCenter = 0;
+    for (int i = start + CENTER_RUN + 1; i < start + PATTERN_RUNS; i++) {
+      afterCenter += stateCount[i];
+    }
+    int centerX = (int) (end - afterCenter - stateCount[start + CENTER_RUN] / 2.0f);
+    int maxCount = stateCountTotal / 2;
+
+    float offsetY = crossCheck(centerX, y, 0, 1, maxCount);
+    if (Float.isNaN(offsetY)) {
+      return Float.MAX_VALUE;
+    }
+    float centerY = y + offsetY;
+    float offsetX = crossCheck(centerX, (int) centerY, 1, 0, maxCount);
+    if (Float.isNaN(offsetX)) {
+      return Float.MAX_VALUE;
+    }
+    float refinedX = centerX + offsetX;
+    // Runs on the diagonal are longer by a factor of sqrt(2), but keep their proportions
+    if (Float.isNaN(crossCheck((int) refinedX, (int) centerY, 1, 1, maxCount * 3 / 2))) {
+      return Float.MAX_VALUE;
+    }
+
+    float moduleSize = stateCountTotal / (float) PATTERN_RUNS;
+    for (Candidate candidate : possibleCenters) {
+      if (candidate.aboutEquals(moduleSize, refinedX, centerY)) {
+        candidate.combine(refinedX, centerY, moduleSize);
+        return moduleSize;
+      }
+    }
+    possibleCenters.add(new Candidate(refinedX, centerY, moduleSize));
+    return moduleSize;
+  }
+
+  /**
+   * A confirmed bull's eye center, averaged over the rows it was found in.
+   */
+  private static final class Candidate {
+    private float x;
+    private float y;
+    private float moduleSize;
+    private int count;
+
+    Candidate(float x, float y, float moduleSize) {
+      this.x = x;
+      this.y = y;
+      this.moduleSize = moduleSize;
+      this.count = 1;
+    }
+
+    boolean aboutEquals(float moduleSize, float x, float y) {
+      if (Math.abs(y - this.y) <= this.moduleSize && Math.abs(x - this.x) <= this.moduleSize) {
+        float moduleSizeDiff = Math.abs(moduleSize - this.moduleSize);
+        return moduleSizeDiff <= 1.0f || moduleSizeDiff <= this.moduleSize;
+      }
+      return false;
+    }
+
+    void combine(float x, float y, float moduleSize) {
+      int combinedCount = count + 1;
+      this.x = (count * this.x + x) / combinedCount;
+      this.y = (count * this.y + y) / combinedCount;
+      this.moduleSize = (count * this.moduleSize + moduleSize) / combinedCount;
+      count = combinedCount;
+    }
+  }
+
+}
@@ -43,6 +43,12 @@ public final class Detector {
   private int nbDataBlocks;
   private int nbCenterLayers;
   private int shift;
+  // Bull's eyes found near the middle row and anywhere in the image, and the center of the search
+  // around the center of the image; all kept for the mirrored attempt on the same image
+  private BullsEyeFinder finder;
+  private ResultPoint[] nearestCenters;
+  private ResultPoint[] bullsEyeCenters;
+  private Point matrixCenter;
 
   public Detector(BitMatrix image) {
     this.image = image;
@@ -53,18 +59,81 @@ public final class Detector {
   }
 
   /**
-   * Detects an Aztec Code in an image.
+   * Detects an Aztec Code in an image. The bull's eyes a {@link BullsEyeFinder} finds nearest the
+   * middle row are tried first, then those it finds anywhere in the image; if none yields a code,
+   * the bull's eye is looked for around the center of the image, which is slower but copes with
+   * bull's eyes too damaged for the finder.
    *
    * @param isMirror if true, image is a mirror-image of original
    * @return {@link AztecDetectorResult} encapsulating results of detecting an Aztec Code
    * @throws NotFoundException if no Aztec Code can be found
    */
-   public AztecDetectorResult detect(boolean isMirror) throws NotFoundException {
+  public AztecDetectorResult detect(boolean isMirror) throws NotFoundException {
+    if (finder == null) {
+      finder = new BullsEyeFinder(image);
+      nearestCenters = finder.findNearestToMiddle();
+    }
+    AztecDetectorResult result = detect(nearestCenters, isMirror);
+    if (result != null) {
+      return result;
+    }
+    if (bullsEyeCenters == null) {
+      // If none was found near the middle, every row has been read already
+      bullsEyeCenters = nearestCenters.length == 0 ? nearestCenters : finder.find();
+    }
+    result = detect(bullsEyeCenters, isMirror);
+    if (result != null) {
+      return result;
+    }
+    if (matrixCenter == null) {
+      matrixCenter = getMatrixCenter();
+    }
+    if (contains(nearestCenters, matrixCenter) || contains(bullsEyeCenters, matrixCenter)) {
+      // Already tried
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return detect(matrixCenter, isMirror);
+  }
+
+  /**
+   * @return the code found at the first of the centers that yields one, or null if none does
+   */
+  private AztecDetectorResult detect(ResultPoint[] centers, boolean isMirror) {
+    for (ResultPoint center : centers) {
+      try {
+        return detect(center, isMirror);
+      } catch (NotFoundException e) {
+        // try the next one
+      }
+    }
+    return null;
+  }
+
+  private static boolean contains(ResultPoint[] centers, Point point) {
+    for (ResultPoint center : centers) {
+      if ((int) center.getX() == point.getX() && (int) center.getY() == point.getY()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Detects an Aztec Code whose bull's eye is centered on a given point, such as one found by a
+   * {@link BullsEyeFinder}.
+   *
+   * @param center a point in the center module of the bull's eye
+   * @param isMirror if true, image is a mirror-image of original
+   * @return {@link AztecDetectorResult} encapsulating results of detecting an Aztec Code
+   * @throws NotFoundException if no Aztec Code can be found there
+   */
+  public AztecDetectorResult detect(ResultPoint center, boolean isMirror) throws NotFoundException {
+    return detect(new Point((int) center.getX(), (int) center.getY()), isMirror);
+  }
 
-    // 1. Get the center of the aztec matrix
-    Point pCenter = getMatrixCenter();
+  private AztecDetectorResult detect(Point pCenter, boolean isMirror) throws NotFoundException {
 
-    // 2. Get the center points of the four diagonal points just outside the bull's eye
+    // 1. Get the center points of the four diagonal points just outside the bull's eye
     //  [topRight, bottomRight, bottomLeft, topLeft]
     ResultPoint[] bullsEyeCorners = getBullsEyeCorners(pCenter);
 
@@ -74,17 +143,17 @@ public final class Detector {
       bullsEyeCorners[2] = temp;
     }
 
-    // 3. Get the size of the matrix and other parameters from the bull's eye
+    // 2. Get the size of the matrix and other parameters from the bull's eye
     extractParameters(bullsEyeCorners);
     
-    // 4. Sample the grid
+    // 3. Sample the grid
     BitMatrix bits = sampleGrid(image,
                                 bullsEyeCorners[shift % 4], 
                                 bullsEyeCorners[(shift + 1) % 4],
                                 bullsEyeCorners[(shift + 2) % 4], 
                                 bullsEyeCorners[(shift + 3) % 4]);
 
-    // 5. Get the corners of the matrix.
+    // 4. Get the corners of the matrix.
     ResultPoint[] corners = getMatrixCornerPoints(bullsEyeCorners);
     
     return new AztecDetectorResult(bits, corners, compact, nbDataBlocks, nbLayers);
@@ -19,12 +19,6 @@ package com.google.zxing.core.aztec.encoder;
 import com.google.zxing.core.common.BitArray;
 
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 
 /**
  * This produces nearly optimal encodings of text into the first-level of
@@ -48,6 +42,8 @@ public final class HighLevelEncoder {
   static final int MODE_MIXED = 3; // 5 bits
   static final int MODE_PUNCT = 4; // 5 bits
 
+  private static final int INITIAL_STATE_CAPACITY = 16;
+
   // The Latch Table shows, for each pair of Modes, the optimal method for
   // getting from one mode to another.  In the worst possible case, this can
   // be up to 14 bits.  In the best possible case, we are already there!
@@ -158,7 +154,11 @@ public final class HighLevelEncoder {
    * @return text represented by this encoder encoded as a {@link BitArray}
    */
   public BitArray encode() {
-    Collection<State> states = Collections.singletonList(State.INITIAL_STATE);
+    // Tokens of all encodings; each state only holds the index of its last token
+    TokenBuffer tokens = new TokenBuffer(4 * text.length);
+    StateList states = new StateList(INITIAL_STATE_CAPACITY);
+    StateList nextStates = new StateList(INITIAL_STATE_CAPACITY);
+    states.add(TokenBuffer.EMPTY, MODE_UPPER, 0, 0);
     for (int index = 0; index < text.length; index++) {
       int pairCode;
       int nextChar = index + 1 < text.length ? text[index + 1] : 0;
@@ -178,130 +178,111 @@ public final class HighLevelEncoder {
         default:    
           pairCode = 0;
       }
+      nextStates.clear();
+      for (int state = 0; state < states.size(); state++) {
+        if (pairCode > 0) {
+          // We have one of the four special PUNCT pairs.  Treat them specially.
+          // Get a new set of states for the two new characters.
+          updateStateForPair(states, state, index, pairCode, nextStates, tokens);
+        } else {
+          // Get a new set of states for the new character.
+          updateStateForChar(states, state, index, nextStates, tokens);
+        }
+      }
       if (pairCode > 0) {
-        // We have one of the four special PUNCT pairs.  Treat them specially.
-        // Get a new set of states for the two new characters.
-        states = updateStateListForPair(states, index, pairCode);
         index++;
-      } else {
-        // Get a new set of states for the new character.
-        states = updateStateListForChar(states, index);
       }
+      // Remove the non-optimal states, and continue from the remaining ones
+      nextStates.simplify();
+      StateList swap = states;
+      states = nextStates;
+      nextStates = swap;
     }
-    // We are left with a set of states.  Find the shortest one.
-    State minState = Collections.min(states, new Comparator<State>() {
-      @Override
-      public int compare(State a, State b) {
-        return a.getBitCount() - b.getBitCount();
+    // We are left with a set of states.  Find the shortest one, the first one if
+    // there are several.
+    int minState = 0;
+    for (int state = 1; state < states.size(); state++) {
+      if (states.getBitCount(state) < states.getBitCount(minState)) {
+        minState = state;
       }
-    });
-    // Convert it to a bit array, and return.
-    return minState.toBitArray(text);
-  }
-
-  // We update a set of states for a new character by updating each state
-  // for the new character, merging the results, and then removing the
-  // non-optimal states.
-  private Collection<State> updateStateListForChar(Iterable<State> states, int index) {
-    Collection<State> result = new LinkedList<>();
-    for (State state : states) {
-      updateStateForChar(state, index, result);
     }
-    return simplifyStates(result);
+    // Convert it to a bit array, and return.
+    return states.toBitArray(minState, text, tokens);
   }
 
-  // Return a set of states that represent the possible ways of updating this
-  // state for the next character.  The resulting set of states are added to
-  // the "result" list.
-  private void updateStateForChar(State state, int index, Collection<State> result) {
+  // Add the states that represent the possible ways of updating this
+  // state for the next character to "result".
+  private void updateStateForChar(StateList states, int state, int index, StateList result, TokenBuffer tokens) {
     char ch = (char) (text[index] & 0xFF);
-    boolean charInCurrentTable = CHAR_MAP[state.getMode()][ch] > 0;
-    State stateNoBinary = null;
+    int stateMode = states.getMode(state);
+    int bitCount = states.getBitCount(state);
+    boolean charInCurrentTable = CHAR_MAP[stateMode][ch] > 0;
+    int tokenNoBinary = TokenBuffer.EMPTY;
+    boolean endedBinary = false;
     for (int mode = 0; mode <= MODE_PUNCT; mode++) {
       int charInMode = CHAR_MAP[mode][ch];
       if (charInMode > 0) {
-        if (stateNoBinary == null) {
-          // Only create stateNoBinary the first time it's required.
-          stateNoBinary = state.endBinaryShift(index);
+        if (!endedBinary) {
+          // Only end Binary Shift mode the first time it's required.
+          tokenNoBinary = StateList.endBinaryShift(states.getToken(state),
+                                                   states.getBinaryShiftByteCount(state), index, tokens);
+          endedBinary = true;
         }
         // Try generating the character by latching to its mode
-        if (!charInCurrentTable || mode == state.getMode() || mode == MODE_DIGIT) {
+        if (!charInCurrentTable || mode == stateMode || mode == MODE_DIGIT) {
           // If the character is in the current table, we don't want to latch to
           // any other mode except possibly digit (which uses only 4 bits).  Any
           // other latch would be equally successful *after* this character, and
           // so wouldn't save any bits.
-          State latchState = stateNoBinary.latchAndAppend(mode, charInMode);
-          result.add(latchState);
+          result.addLatchAndAppend(stateMode, tokenNoBinary, bitCount, mode, charInMode, tokens);
         }
         // Try generating the character by switching to its mode.
-        if (!charInCurrentTable && SHIFT_TABLE[state.getMode()][mode] >= 0) {
+        if (!charInCurrentTable && SHIFT_TABLE[stateMode][mode] >= 0) {
           // It never makes sense to temporarily shift to another mode if the
           // character exists in the current mode.  That can never save bits.
-          State shiftState = stateNoBinary.shiftAndAppend(mode, charInMode);
-          result.add(shiftState);
+          result.addShiftAndAppend(stateMode, tokenNoBinary, bitCount, mode, charInMode, tokens);
         }
       }
     }
-    if (state.getBinaryShiftByteCount() > 0 || CHAR_MAP[state.getMode()][ch] == 0) {
+    if (states.getBinaryShiftByteCount(state) > 0 || CHAR_MAP[stateMode][ch] == 0) {
       // It's never worthwhile to go into binary shift mode if you're not already
       // in binary shift mode, and the character exists in your current mode.
       // That can never save bits over just outputting the char in the current mode.
-      State binaryState = state.addBinaryShiftChar(index);
-      result.add(binaryState);
-    }
-  }
-
-  private static Collection<State> updateStateListForPair(Iterable<State> states, int index, int pairCode) {
-    Collection<State> result = new LinkedList<>();
-    for (State state : states) {
-      updateStateForPair(state, index, pairCode, result);
+      result.addBinaryShiftChars(states, state, index, 1, tokens);
     }
-    return simplifyStates(result);
   }
 
-  private static void updateStateForPair(State state, int index, int pairCode, Collection<State> result) {
-    State stateNoBinary = state.endBinaryShift(index);
+  private static void updateStateForPair(StateList states, int state, int index, int pairCode,
+                                         StateList result, TokenBuffer tokens) {
+    int stateMode = states.getMode(state);
+    int bitCount = states.getBitCount(state);
+    int tokenNoBinary = StateList.endBinaryShift(states.getToken(state),
+                                                 states.getBinaryShiftByteCount(state), index, tokens);
     // Possibility 1.  Latch to MODE_PUNCT, and then append this code
-    result.add(stateNoBinary.latchAndAppend(MODE_PUNCT, pairCode));
-    if (state.getMode() != MODE_PUNCT) {
+    result.addLatchAndAppend(stateMode, tokenNoBinary, bitCount, MODE_PUNCT, pairCode, tokens);
+    if (stateMode != MODE_PUNCT) {
       // Possibility 2.  Shift to MODE_PUNCT, and then append this code.
       // Every state except MODE_PUNCT (handled above) can shift
-      result.add(stateNoBinary.shiftAndAppend(MODE_PUNCT, pairCode));
+      result.addShiftAndAppend(stateMode, tokenNoBinary, bitCount, MODE_PUNCT, pairCode, tokens);
     }
     if (pairCode == 3 || pairCode == 4) {
       // both characters are in DIGITS.  Sometimes better to just add two digits
-      State digitState = stateNoBinary
-          .latchAndAppend(MODE_DIGIT, 16 - pairCode)  // period or comma in DIGIT
-          .latchAndAppend(MODE_DIGIT, 1);             // space in DIGIT
-      result.add(digitState);
+      int digitToken = tokenNoBinary;
+      int digitBitCount = bitCount;
+      if (stateMode != MODE_DIGIT) {
+        int latch = LATCH_TABLE[stateMode][MODE_DIGIT];
+        digitToken = tokens.add(digitToken, latch & 0xFFFF, latch >> 16);
+        digitBitCount += latch >> 16;
+      }
+      digitToken = tokens.add(digitToken, 16 - pairCode, 4);  // period or comma in DIGIT
+      digitBitCount += 4;
+      result.addLatchAndAppend(MODE_DIGIT, digitToken, digitBitCount, MODE_DIGIT, 1, tokens);  // space in DIGIT
     }
-    if (state.getBinaryShiftByteCount() > 0) {
+    if (states.getBinaryShiftByteCount(state) > 0) {
       // It only makes sense to do the characters as binary if we're already
       // in binary mode.
-      State binaryState = state.addBinaryShiftChar(index).addBinaryShiftChar(index + 1);
-      result.add(binaryState);
-    }
-  }
-
-  private static Collection<State> simplifyStates(Iterable<State> states) {
-    List<State> result = new LinkedList<>();
-    for (State newState : states) {
-      boolean add = true;
-      for (Iterator<State> iterator = result.iterator(); iterator.hasNext();) {
-        State oldState = iterator.next();
-        if (oldState.isBetterThanOrEqualTo(newState)) {
-          add = false;
-          break;
-        }
-        if (newState.isBetterThanOrEqualTo(oldState)) {
-          iterator.remove();
-        }
-      }
-      if (add) {
-        result.add(newState);
-      }
+      result.addBinaryShiftChars(states, state, index, 2, tokens);
     }
-    return result;
   }
 
 }
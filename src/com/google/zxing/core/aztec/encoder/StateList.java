@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.aztec.encoder;
+
+import com.google.zxing.core.common.BitArray;
+
+/**
+ * A list of states, each holding all information about a sequence necessary to generate the
+ * current output. States are kept in parallel int arrays rather than as one object each, and are
+ * never changed once added; a transition adds the state it leads to to another list.
+ */
+final class StateList {
+
+  // The current mode of each encoding (or the mode to which we'll return if
+  // we're in Binary Shift mode.
+  private int[] modes;
+  // The last token that we output, in the encoder's TokenBuffer.  If we are in
+  // Binary Shift mode, the tokens do *not* yet include the token for those bytes
+  private int[] tokens;
+  // If non-zero, the number of most recent bytes that should be output
+  // in Binary Shift mode.
+  private int[] binaryShiftByteCounts;
+  // The total number of bits generated (including Binary Shift).
+  private int[] bitCounts;
+  private int size;
+
+  StateList(int initialCapacity) {
+    modes = new int[initialCapacity];
+    tokens = new int[initialCapacity];
+    binaryShiftByteCounts = new int[initialCapacity];
+    bitCounts = new int[initialCapacity];
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  int getMode(int state) {
+    return modes[state];
+  }
+
+  int getToken(int state) {
+    return tokens[state];
+  }
+
+  int getBinaryShiftByteCount(int state) {
+    return binaryShiftByteCounts[state];
+  }
+
+  int getBitCount(int state) {
+    return bitCounts[state];
+  }
+
+  void add(int token, int mode, int binaryBytes, int bitCount) {
+    if (size == modes.length) {
+      int capacity = size * 2;
+      modes = copyOf(modes, capacity);
+      tokens = copyOf(tokens, capacity);
+      binaryShiftByteCounts = copyOf(binaryShiftByteCounts, capacity);
+      bitCounts = copyOf(bitCounts, capacity);
+    }
+    modes[size] = mode;
+    this.tokens[size] = token;
+    binaryShiftByteCounts[size] = binaryBytes;
+    bitCounts[size] = bitCount;
+    size++;
+  }
+
+  private static int[] copyOf(int[] array, int length) {
+    int[] copy = new int[length];
+    System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+    return copy;
+  }
+
+  // Add a state representing the given one, which is not in Binary Shift mode,
+  // with a latch to a (not necessary different) mode, and then a code.
+  void addLatchAndAppend(int fromMode, int token, int bitCount, int mode, int value, TokenBuffer tokens) {
+    if (mode != fromMode) {
+      int latch = HighLevelEncoder.LATCH_TABLE[fromMode][mode];
+      token = tokens.add(token, latch & 0xFFFF, latch >> 16);
+      bitCount += latch >> 16;
+    }
+    int latchModeBitCount = mode == HighLevelEncoder.MODE_DIGIT ? 4 : 5;
+    token = tokens.add(token, value, latchModeBitCount);
+    add(token, mode, 0, bitCount + latchModeBitCount);
+  }
+
+  // Add a state representing the given one, which is not in Binary Shift mode,
+  // with a temporary shift to a different mode to output a single value.
+  void addShiftAndAppend(int fromMode, int token, int bitCount, int mode, int value, TokenBuffer tokens) {
+    int thisModeBitCount = fromMode == HighLevelEncoder.MODE_DIGIT ? 4 : 5;
+    // Shifts exist only to UPPER and PUNCT, both with tokens size 5.
+    token = tokens.add(token, HighLevelEncoder.SHIFT_TABLE[fromMode][mode], thisModeBitCount);
+    token = tokens.add(token, value, 5);
+    add(token, fromMode, 0, bitCount + thisModeBitCount + 5);
+  }
+
+  // Add a state representing the given state of another list, but with
+  // additional characters output in Binary Shift mode.
+  void addBinaryShiftChars(StateList from, int state, int index, int count, TokenBuffer tokens) {
+    int token = from.tokens[state];
+    int mode = from.modes[state];
+    int binaryShiftByteCount = from.binaryShiftByteCounts[state];
+    int bitCount = from.bitCounts[state];
+    for (int i = 0; i < count; i++) {
+      if (mode == HighLevelEncoder.MODE_PUNCT || mode == HighLevelEncoder.MODE_DIGIT)  {
+        int latch = HighLevelEncoder.LATCH_TABLE[mode][HighLevelEncoder.MODE_UPPER];
+        token = tokens.add(token, latch & 0xFFFF, latch >> 16);
+        bitCount += latch >> 16;
+        mode = HighLevelEncoder.MODE_UPPER;
+      }
+      int deltaBitCount =
+        (binaryShiftByteCount == 0 || binaryShiftByteCount == 31) ? 18 :
+        (binaryShiftByteCount == 62) ? 9 : 8;
+      binaryShiftByteCount++;
+      bitCount += deltaBitCount;
+      if (binaryShiftByteCount == 2047 + 31) {
+        // The string is as long as it's allowed to be.  We should end it.
+        token = endBinaryShift(token, binaryShiftByteCount, index + i + 1, tokens);
+        binaryShiftByteCount = 0;
+      }
+    }
+    add(token, mode, binaryShiftByteCount, bitCount);
+  }
+
+  // Return the last token of the state identical to the given one, but no
+  // longer in Binary Shift mode.
+  static int endBinaryShift(int token, int binaryShiftByteCount, int index, TokenBuffer tokens) {
+    if (binaryShiftByteCount == 0) {
+      return token;
+    }
+    return tokens.addBinaryShift(token, index - binaryShiftByteCount, binaryShiftByteCount);
+  }
+
+  // Returns true if state "a" is better (or equal) to be in than state "b"
+  // under all possible circumstances.
+  private boolean isBetterThanOrEqualTo(int a, int b) {
+    int mySize = bitCounts[a];
+    if (mySize > bitCounts[b]) {
+      // Latching and entering Binary Shift mode only add bits
+      return false;
+    }
+    mySize += HighLevelEncoder.LATCH_TABLE[modes[a]][modes[b]] >> 16;
+    int otherBinaryShiftByteCount = binaryShiftByteCounts[b];
+    if (otherBinaryShiftByteCount > 0 &&
+        (binaryShiftByteCounts[a] == 0 || binaryShiftByteCounts[a] > otherBinaryShiftByteCount)) {
+      mySize += 10;     // Cost of entering Binary Shift mode.
+    }
+    return mySize <= bitCounts[b];
+  }
+
+  // Remove the non-optimal states, in place.  Each state is compared with those
+  // kept so far, in order, exactly as if they were added to a list one by one; the
+  // order of the kept states decides between encodings of equal length.  Outside of
+  // Binary Shift mode one state per mode at most is kept, so only a handful of
+  // states are compared for each character of the text.
+  void simplify() {
+    int resultCount = 0;
+    for (int newState = 0; newState < size; newState++) {
+      boolean add = true;
+      int kept = 0;
+      for (int oldState = 0; oldState < resultCount; oldState++) {
+        if (isBetterThanOrEqualTo(oldState, newState)) {
+          add = false;
+          // Keep this one and all after it
+          move(oldState, kept, resultCount - oldState);
+          kept += resultCount - oldState;
+          break;
+        }
+        if (!isBetterThanOrEqualTo(newState, oldState)) {
+          move(oldState, kept++, 1);
+        }
+      }
+      resultCount = kept;
+      if (add) {
+        move(newState, resultCount++, 1);
+      }
+    }
+    size = resultCount;
+  }
+
+  private void move(int from, int to, int length) {
+    if (from == to) {
+      return;
+    }
+    if (length == 1) {
+      modes[to] = modes[from];
+      tokens[to] = tokens[from];
+      binaryShiftByteCounts[to] = binaryShiftByteCounts[from];
+      bitCounts[to] = bitCounts[from];
+    } else {
+      System.arraycopy(modes, from, modes, to, length);
+      System.arraycopy(tokens, from, tokens, to, length);
+      System.arraycopy(binaryShiftByteCounts, from, binaryShiftByteCounts, to, length);
+      System.arraycopy(bitCounts, from, bitCounts, to, length);
+    }
+  }
+
+  BitArray toBitArray(int state, byte[] text, TokenBuffer tokens) {
+    int last = endBinaryShift(this.tokens[state], binaryShiftByteCounts[state], text.length, tokens);
+    return tokens.toBitArray(last, bitCounts[state], text);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    for (int state = 0; state < size; state++) {
+      result.append(String.format("%s bits=%d bytes=%d%n", HighLevelEncoder.MODE_NAMES[modes[state]],
+                                  bitCounts[state], binaryShiftByteCounts[state]));
+    }
+    return result.toString();
+  }
+
+}
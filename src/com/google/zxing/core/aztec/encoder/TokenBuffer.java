@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.aztec.encoder;
+
+import com.google.zxing.core.common.BitArray;
+
+/**
+ * The tokens of every encoding considered by one {@link HighLevelEncoder} run, packed into a
+ * single int array instead of one object per token.
+ *
+ * A token is identified by its index. Each takes three ints: the index of the previous token
+ * of its encoding, or {@link #EMPTY}; then either a value and its bit count, or the start of a
+ * Binary Shift run and the negated number of bytes in it. Encodings that share a prefix share
+ * its tokens, as the tokens are never changed once added and a {@link StateList} entry only
+ * refers to the last token of its encoding.
+ */
+final class TokenBuffer {
+
+  static final int EMPTY = -1;
+
+  private static final int TOKEN_SIZE = 3;
+
+  private int[] tokens;
+  private int size;
+
+  TokenBuffer(int initialCapacity) {
+    tokens = new int[Math.max(1, initialCapacity) * TOKEN_SIZE];
+  }
+
+  int add(int previous, int value, int bitCount) {
+    return append(previous, value, bitCount);
+  }
+
+  int addBinaryShift(int previous, int start, int byteCount) {
+    return append(previous, start, -byteCount);
+  }
+
+  private int append(int previous, int a, int b) {
+    if (size + TOKEN_SIZE > tokens.length) {
+      int[] newTokens = new int[tokens.length * 2];
+      System.arraycopy(tokens, 0, newTokens, 0, size);
+      tokens = newTokens;
+    }
+    int token = size;
+    tokens[size++] = previous;
+    tokens[size++] = a;
+    tokens[size++] = b;
+    return token;
+  }
+
+  /**
+   * Writes the encoding that ends with the given token, first token first.
+   *
+   * @param last the last token of the encoding
+   * @param bitCount the total number of bits of the encoding
+   * @param text the text being encoded, for Binary Shift runs
+   */
+  BitArray toBitArray(int last, int bitCount, byte[] text) {
+    int length = 0;
+    for (int token = last; token != EMPTY; token = tokens[token]) {
+      length++;
+    }
+    int[] symbols = new int[length];
+    for (int token = last; token != EMPTY; token = tokens[token]) {
+      symbols[--length] = token;
+    }
+    // The size is known, so set bits in place rather than appending them one by one
+    BitArray bitArray = new BitArray(bitCount);
+    int position = 0;
+    for (int token : symbols) {
+      int b = tokens[token + 2];
+      if (b >= 0) {
+        position = write(bitArray, position, tokens[token + 1], b);
+      } else {
+        position = writeBinaryShift(bitArray, position, text, tokens[token + 1], -b);
+      }
+    }
+    return bitArray;
+  }
+
+  /**
+   * Writes the least-significant bits of value, most-significant first, like
+   * {@link BitArray#appendBits(int, int)}.
+   *
+   * @return position just past the bits written
+   */
+  private static int write(BitArray bitArray, int position, int value, int numBits) {
+    for (int numBitsLeft = numBits; numBitsLeft > 0; numBitsLeft--) {
+      if (((value >> (numBitsLeft - 1)) & 0x01) == 1) {
+        bitArray.set(position);
+      }
+      position++;
+    }
+    return position;
+  }
+
+  private static int writeBinaryShift(BitArray bitArray, int position, byte[] text,
+                                      int binaryShiftStart, int binaryShiftByteCount) {
+    for (int i = 0; i < binaryShiftByteCount; i++) {
+      if (i == 0 || (i == 31 && binaryShiftByteCount <= 62))  {
+        // We need a header before the first character, and before
+        // character 31 when the total byte code is <= 62
+        position = write(bitArray, position, 31, 5);  // BINARY_SHIFT
+        if (binaryShiftByteCount > 62) {
+          position = write(bitArray, position, binaryShiftByteCount - 31, 16);
+        } else if (i == 0) {
+          // 1 <= binaryShiftByteCode <= 62
+          position = write(bitArray, position, Math.min(binaryShiftByteCount, 31), 5);
+        } else {
+          // 32 <= binaryShiftCount <= 62 and i == 31
+          position = write(bitArray, position, binaryShiftByteCount - 31, 5);
+        }
+      }
+      position = write(bitArray, position, text[binaryShiftStart + i], 8);
+    }
+    return position;
+  }
+
+}
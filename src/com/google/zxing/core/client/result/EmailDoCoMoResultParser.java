@@ -58,7 +58,7 @@ public final class EmailDoCoMoResultParser extends AbstractDoCoMoResultParser {
    * in a barcode, not "judge" it.
    */
   static boolean isBasicallyValidEmailAddress(String email) {
-    return email != null && ATEXT_ALPHANUMERIC.matcher(email).matches() && email.indexOf('@') >= 0;
+    return email != null && email.indexOf('@') >= 0 && ATEXT_ALPHANUMERIC.matcher(email).matches();
   }
 
 }
\ No newline at end of file
@@ -62,11 +62,46 @@ public abstract class ResultParser {
       new VINResultParser(),
   };
 
-  private static final Pattern DIGITS = Pattern.compile("\\d+");
   private static final Pattern AMPERSAND = Pattern.compile("&");
   private static final Pattern EQUALS = Pattern.compile("=");
   private static final String BYTE_ORDER_MARK = "\ufeff";
 
+  /**
+   * Prefixes, compared ignoring case, of which the text must start with one for the parser at the
+   * same index in {@link #PARSERS} to accept it. Parsers without any are tried on all text.
+   */
+  private static final String[][] PARSER_PREFIXES = {
+      {"MEBKM:"},
+      {"MECARD:"},
+      {"MATMSG:"},
+      null,
+      {"BEGIN:VCARD"},
+      {"BIZCARD:"},
+      null,
+      null,
+      {"smtp:"},
+      {"tel:"},
+      {"sms:", "mms:"},
+      {"smsto:", "mmsto:"},
+      {"geo:"},
+      {"WIFI:"},
+      {"urlto:"},
+      null,
+      null,
+      null,
+      null,
+      null,
+  };
+
+  private static final PrefixNode PREFIX_TRIE = new PrefixNode();
+  static {
+    for (int i = 0; i < PARSERS.length; i++) {
+      for (String prefix : PARSER_PREFIXES[i] == null ? new String[] {""} : PARSER_PREFIXES[i]) {
+        PREFIX_TRIE.add(prefix, 1 << i);
+      }
+    }
+  }
+
   /**
    * Attempts to parse the raw {@link Result}'s contents as a particular type
    * of information (email, URL, etc.) and return a {@link ParsedResult} encapsulating
@@ -86,10 +121,14 @@ public abstract class ResultParser {
   }
 
   public static ParsedResult parseResult(Result theResult) {
-    for (ResultParser parser : PARSERS) {
-      ParsedResult result = parser.parse(theResult);
-      if (result != null) {
-        return result;
+    // Only parsers whose prefix the text starts with, or that have none, can match it
+    int candidates = PREFIX_TRIE.getParsers(getMassagedText(theResult));
+    for (int i = 0; i < PARSERS.length; i++) {
+      if ((candidates & (1 << i)) != 0) {
+        ParsedResult result = PARSERS[i].parse(theResult);
+        if (result != null) {
+          return result;
+        }
       }
     }
     return new TextParsedResult(theResult.getText(), null);
@@ -150,7 +189,7 @@ public abstract class ResultParser {
   }
 
   protected static boolean isStringOfDigits(CharSequence value, int length) {
-    return value != null && length > 0 && length == value.length() && DIGITS.matcher(value).matches();
+    return value != null && length > 0 && length == value.length() && isSubstringOfDigits(value, 0, length);
   }
 
   protected static boolean isSubstringOfDigits(CharSequence value, int offset, int length) {
@@ -158,7 +197,16 @@ public abstract class ResultParser {
       return false;
     }
     int max = offset + length;
-    return value.length() >= max && DIGITS.matcher(value.subSequence(offset, max)).matches();
+    if (value.length() < max) {
+      return false;
+    }
+    for (int i = offset; i < max; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
   }
 
   static Map<String,String> parseNameValuePairs(String uri) {
@@ -256,4 +304,48 @@ public abstract class ResultParser {
     return matches == null ? null : matches[0];
   }
 
+  /**
+   * Node of a trie of the parser prefixes, case folded to lower case ASCII.
+   */
+  private static final class PrefixNode {
+
+    private final PrefixNode[] children = new PrefixNode[128];
+    // Bit set of the indices of parsers whose prefix ends at this node
+    private int parsers;
+
+    void add(String prefix, int parser) {
+      PrefixNode node = this;
+      for (int i = 0; i < prefix.length(); i++) {
+        char c = toLowerCase(prefix.charAt(i));
+        if (node.children[c] == null) {
+          node.children[c] = new PrefixNode();
+        }
+        node = node.children[c];
+      }
+      node.parsers |= parser;
+    }
+
+    /**
+     * @return bit set of the indices of parsers whose prefix the text starts with, or that have none
+     */
+    int getParsers(String text) {
+      PrefixNode node = this;
+      int result = parsers;
+      for (int i = 0; i < text.length(); i++) {
+        char c = toLowerCase(text.charAt(i));
+        node = c < 128 ? node.children[c] : null;
+        if (node == null) {
+          break;
+        }
+        result |= node.parsers;
+      }
+      return result;
+    }
+
+    private static char toLowerCase(char c) {
+      return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+  }
+
 }
@@ -18,9 +18,6 @@ package com.google.zxing.core.client.result;
 
 import com.google.zxing.core.Result;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Tries to parse results that are a URI of some kind.
  * 
@@ -28,13 +25,6 @@ import java.util.regex.Pattern;
  */
 public final class URIResultParser extends ResultParser {
 
-  // See http://www.ietf.org/rfc/rfc2396.txt
-  private static final Pattern URL_WITH_PROTOCOL_PATTERN = Pattern.compile("[a-zA-Z][a-zA-Z0-9+-.]+:");
-  private static final Pattern URL_WITHOUT_PROTOCOL_PATTERN = Pattern.compile(
-      "([a-zA-Z0-9\\-]+\\.)+[a-zA-Z]{2,}" + // host name elements
-      "(:\\d{1,5})?" + // maybe port
-      "(/|\\?|$)"); // query, path or nothing
-
   @Override
   public URIParsedResult parse(Result result) {
     String rawText = getMassagedText(result);
@@ -52,12 +42,73 @@ public final class URIResultParser extends ResultParser {
       // Quick hack check for a common case
       return false;
     }
-    Matcher m = URL_WITH_PROTOCOL_PATTERN.matcher(uri);
-    if (m.find() && m.start() == 0) { // match at start only
-      return true;
+    return startsWithScheme(uri) || startsWithHostName(uri);
+  }
+
+  /**
+   * @return true iff the text starts with a scheme and colon, like {@code [a-zA-Z][a-zA-Z0-9+,\-.]+:},
+   *  see http://www.ietf.org/rfc/rfc2396.txt
+   */
+  private static boolean startsWithScheme(String uri) {
+    int length = uri.length();
+    if (length == 0 || !isLetter(uri.charAt(0))) {
+      return false;
+    }
+    int i = 1;
+    while (i < length) {
+      char c = uri.charAt(i);
+      if (!isLetter(c) && !(c >= '0' && c <= '9') && !(c >= '+' && c <= '.')) {
+        break;
+      }
+      i++;
+    }
+    return i > 1 && i < length && uri.charAt(i) == ':';
+  }
+
+  /**
+   * @return true iff the text starts with a host name of at least two labels, the last of which is
+   *  alphabetic, followed by an optional port and then a path, a query or nothing
+   */
+  private static boolean startsWithHostName(String uri) {
+    int length = uri.length();
+    int i = 0;
+    int labelStart = 0;
+    boolean alphabeticLabel = true;
+    int dots = 0;
+    while (i < length) {
+      char c = uri.charAt(i);
+      if (c == '.') {
+        if (i == labelStart) {
+          return false;
+        }
+        dots++;
+        labelStart = i + 1;
+        alphabeticLabel = true;
+      } else if ((c >= '0' && c <= '9') || c == '-') {
+        alphabeticLabel = false;
+      } else if (!isLetter(c)) {
+        break;
+      }
+      i++;
+    }
+    if (dots == 0 || i - labelStart < 2 || !alphabeticLabel) {
+      return false;
+    }
+    if (i < length && uri.charAt(i) == ':') {
+      // Port of up to five digits
+      int portStart = ++i;
+      while (i < length && i - portStart < 6 && uri.charAt(i) >= '0' && uri.charAt(i) <= '9') {
+        i++;
+      }
+      if (i == portStart || i - portStart > 5) {
+        return false;
+      }
     }
-    m = URL_WITHOUT_PROTOCOL_PATTERN.matcher(uri);
-    return m.find() && m.start() == 0;
+    return i == length || uri.charAt(i) == '/' || uri.charAt(i) == '?';
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
   }
 
-}
\ No newline at end of file
+}
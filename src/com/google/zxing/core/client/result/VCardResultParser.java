@@ -24,7 +24,6 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -35,14 +34,10 @@ import java.util.regex.Pattern;
  */
 public final class VCardResultParser extends ResultParser {
 
-  private static final Pattern BEGIN_VCARD = Pattern.compile("BEGIN:VCARD", Pattern.CASE_INSENSITIVE);
+  private static final String BEGIN_VCARD = "BEGIN:VCARD";
   private static final Pattern VCARD_LIKE_DATE = Pattern.compile("\\d{4}-?\\d{2}-?\\d{2}");
-  private static final Pattern CR_LF_SPACE_TAB = Pattern.compile("\r\n[ \t]");
-  private static final Pattern NEWLINE_ESCAPE = Pattern.compile("\\\\[nN]");
-  private static final Pattern VCARD_ESCAPES = Pattern.compile("\\\\([,;\\\\])");
   private static final Pattern EQUALS = Pattern.compile("=");
   private static final Pattern SEMICOLON = Pattern.compile(";");
-  private static final Pattern UNESCAPED_SEMICOLONS = Pattern.compile("(?<!\\\\);+");
   private static final Pattern COMMA = Pattern.compile(",");
   private static final Pattern SEMICOLON_OR_COMMA = Pattern.compile("[;,]");
 
@@ -52,31 +47,31 @@ public final class VCardResultParser extends ResultParser {
     // to throw out everything else we parsed just because this was omitted. In fact, Eclair
     // is doing just that, and we can't parse its contacts without this leniency.
     String rawText = getMassagedText(result);
-    Matcher m = BEGIN_VCARD.matcher(rawText);
-    if (!m.find() || m.start() != 0) {
+    if (!regionMatchesIgnoreCase(rawText, 0, BEGIN_VCARD)) {
       return null;
     }
-    List<List<String>> names = matchVCardPrefixedField("FN", rawText, true, false);
+    Properties properties = new Properties(rawText);
+    List<List<String>> names = properties.match("FN", true, false);
     if (names == null) {
       // If no display names found, look for regular name fields and format them
-      names = matchVCardPrefixedField("N", rawText, true, false);
+      names = properties.match("N", true, false);
       formatNames(names);
     }
-    List<String> nicknameString = matchSingleVCardPrefixedField("NICKNAME", rawText, true, false);
+    List<String> nicknameString = properties.matchSingle("NICKNAME", true, false);
     String[] nicknames = nicknameString == null ? null : COMMA.split(nicknameString.get(0));
-    List<List<String>> phoneNumbers = matchVCardPrefixedField("TEL", rawText, true, false);
-    List<List<String>> emails = matchVCardPrefixedField("EMAIL", rawText, true, false);
-    List<String> note = matchSingleVCardPrefixedField("NOTE", rawText, false, false);
-    List<List<String>> addresses = matchVCardPrefixedField("ADR", rawText, true, true);
-    List<String> org = matchSingleVCardPrefixedField("ORG", rawText, true, true);
-    List<String> birthday = matchSingleVCardPrefixedField("BDAY", rawText, true, false);
+    List<List<String>> phoneNumbers = properties.match("TEL", true, false);
+    List<List<String>> emails = properties.match("EMAIL", true, false);
+    List<String> note = properties.matchSingle("NOTE", false, false);
+    List<List<String>> addresses = properties.match("ADR", true, true);
+    List<String> org = properties.matchSingle("ORG", true, true);
+    List<String> birthday = properties.matchSingle("BDAY", true, false);
     if (birthday != null && !isLikeVCardDate(birthday.get(0))) {
       birthday = null;
     }
-    List<String> title = matchSingleVCardPrefixedField("TITLE", rawText, true, false);
-    List<List<String>> urls = matchVCardPrefixedField("URL", rawText, true, false);
-    List<String> instantMessenger = matchSingleVCardPrefixedField("IMPP", rawText, true, false);
-    List<String> geoString = matchSingleVCardPrefixedField("GEO", rawText, true, false);
+    List<String> title = properties.matchSingle("TITLE", true, false);
+    List<List<String>> urls = properties.match("URL", true, false);
+    List<String> instantMessenger = properties.matchSingle("IMPP", true, false);
+    List<String> geoString = properties.matchSingle("GEO", true, false);
     String[] geo = geoString == null ? null : SEMICOLON_OR_COMMA.split(geoString.get(0));
     if (geo != null && geo.length != 2) {
       geo = null;
@@ -99,111 +94,289 @@ public final class VCardResultParser extends ResultParser {
                                        geo);
   }
 
-  static List<List<String>> matchVCardPrefixedField(CharSequence prefix,
-                                                    String rawText,
-                                                    boolean trim,
-                                                    boolean parseFieldDivider) {
-    List<List<String>> matches = null;
-    int i = 0;
-    int max = rawText.length();
+  /**
+   * The properties of a vCard or iCalendar text, split out in a single scan. A property starts a
+   * line with its name, optionally followed by metadata (led by ;), and ends in a colon; its value
+   * runs to the end of the line, including continuation lines. Values are only decoded when their
+   * property is asked for, so large ones such as PHOTO data cost no more than the scan.
+   */
+  static final class Properties {
 
-    while (i < max) {
+    private final String rawText;
+    private final List<Property> properties = new ArrayList<>();
 
-      // At start or after newline, match prefix, followed by optional metadata 
-      // (led by ;) ultimately ending in colon
-      Matcher matcher = Pattern.compile("(?:^|\n)" + prefix + "(?:;([^:]*))?:",
-                                        Pattern.CASE_INSENSITIVE).matcher(rawText);
-      if (i > 0) {
-        i--; // Find from i-1 not i since looking at the preceding character
-      }
-      if (!matcher.find(i)) {
-        break;
-      }
-      i = matcher.end(0); // group 0 = whole pattern; end(0) is past final colon
-
-      String metadataString = matcher.group(1); // group 1 = metadata substring
-      List<String> metadata = null;
-      boolean quotedPrintable = false;
-      String quotedPrintableCharset = null;
-      if (metadataString != null) {
-        for (String metadatum : SEMICOLON.split(metadataString)) {
-          if (metadata == null) {
-            metadata = new ArrayList<>(1);
-          }
-          metadata.add(metadatum);
-          String[] metadatumTokens = EQUALS.split(metadatum, 2);
-          if (metadatumTokens.length > 1) {
-            String key = metadatumTokens[0];
-            String value = metadatumTokens[1];
-            if ("ENCODING".equalsIgnoreCase(key) && "QUOTED-PRINTABLE".equalsIgnoreCase(value)) {
-              quotedPrintable = true;
-            } else if ("CHARSET".equalsIgnoreCase(key)) {
-              quotedPrintableCharset = value;
+    Properties(String rawText) {
+      this.rawText = rawText;
+      int max = rawText.length();
+      int lineStart = 0;
+      while (lineStart < max) {
+        Property property = parseProperty(rawText, lineStart);
+        int next = lineStart;
+        if (property != null) {
+          properties.add(property);
+          if (!property.quotedPrintable && rawText.indexOf('\n', lineStart) >= property.valueStart) {
+            // Lines folded into this value start with a space or tab, so none of them starts a property
+            if (property.newline < 0) {
+              break;
             }
+            next = property.newline;
           }
         }
-      }
-
-      int matchStart = i; // Found the start of a match here
-
-      while ((i = rawText.indexOf((int) '\n', i)) >= 0) { // Really, end in \r\n
-        if (i < rawText.length() - 1 &&           // But if followed by tab or space,
-            (rawText.charAt(i+1) == ' ' ||        // this is only a continuation
-             rawText.charAt(i+1) == '\t')) {
-          i += 2; // Skip \n and continutation whitespace
-        } else if (quotedPrintable &&             // If preceded by = in quoted printable
-                   ((i >= 1 && rawText.charAt(i-1) == '=') || // this is a continuation
-                    (i >= 2 && rawText.charAt(i-2) == '='))) {
-          i++; // Skip \n
-        } else {
+        next = rawText.indexOf('\n', next);
+        if (next < 0) {
           break;
         }
+        lineStart = next + 1;
       }
+    }
 
-      if (i < 0) {
-        // No terminating end character? uh, done. Set i such that loop terminates and break
-        i = max;
-      } else if (i > matchStart) {
-        // found a match
-        if (matches == null) {
-          matches = new ArrayList<>(1); // lazy init
+    /**
+     * @param prefix property name, compared ignoring case
+     * @param trim whether to trim the values
+     * @param parseFieldDivider whether to replace the unescaped semicolons that divide fields with newlines
+     * @return for each property of that name, its value followed by its metadata, or null if there is none
+     */
+    List<List<String>> match(CharSequence prefix, boolean trim, boolean parseFieldDivider) {
+      List<List<String>> matches = null;
+      // Properties starting within the value of the previous match are part of it
+      int searchStart = 0;
+      for (Property property : properties) {
+        if (property.start < searchStart || !property.isNamed(rawText, prefix)) {
+          continue;
         }
-        if (i >= 1 && rawText.charAt(i-1) == '\r') {
-          i--; // Back up over \r, which really should be there
-        }
-        String element = rawText.substring(matchStart, i);
-        if (trim) {
-          element = element.trim();
+        if (property.newline < 0) {
+          // No terminating end character? uh, done
+          break;
         }
-        if (quotedPrintable) {
-          element = decodeQuotedPrintable(element, quotedPrintableCharset);
-          if (parseFieldDivider) {
-            element = UNESCAPED_SEMICOLONS.matcher(element).replaceAll("\n").trim();
+        searchStart = property.newline + 1;
+        if (property.newline > property.valueStart) {
+          if (matches == null) {
+            matches = new ArrayList<>(1); // lazy init
           }
-        } else {
-          if (parseFieldDivider) {
-            element = UNESCAPED_SEMICOLONS.matcher(element).replaceAll("\n").trim();
+          String element = property.decodeValue(rawText, trim, parseFieldDivider);
+          List<String> match;
+          if (property.metadata == null) {
+            match = new ArrayList<>(1);
+          } else {
+            match = new ArrayList<>(property.metadata.size() + 1);
+            match.addAll(property.metadata);
           }
-          element = CR_LF_SPACE_TAB.matcher(element).replaceAll("");
-          element = NEWLINE_ESCAPE.matcher(element).replaceAll("\n");
-          element = VCARD_ESCAPES.matcher(element).replaceAll("$1");
-        }
-        if (metadata == null) {
-          List<String> match = new ArrayList<>(1);
-          match.add(element);
+          match.add(0, element);
           matches.add(match);
-        } else {
-          metadata.add(0, element);
-          matches.add(metadata);
         }
-        i++;
+      }
+      return matches;
+    }
+
+    List<String> matchSingle(CharSequence prefix, boolean trim, boolean parseFieldDivider) {
+      List<List<String>> values = match(prefix, trim, parseFieldDivider);
+      return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+  }
+
+  private static final class Property {
+
+    int start;
+    int nameEnd;
+    List<String> metadata;
+    boolean quotedPrintable;
+    String quotedPrintableCharset;
+    int valueStart;
+    // Line feed ending the value, or -1 if there is none
+    int newline;
+
+    boolean isNamed(String rawText, CharSequence prefix) {
+      return nameEnd - start == prefix.length() && regionMatchesIgnoreCase(rawText, start, prefix);
+    }
+
+    String decodeValue(String rawText, boolean trim, boolean parseFieldDivider) {
+      int end = newline;
+      if (rawText.charAt(end - 1) == '\r') {
+        end--; // Back up over \r, which really should be there
+      }
+      String element = rawText.substring(valueStart, end);
+      if (trim) {
+        element = element.trim();
+      }
+      if (quotedPrintable) {
+        element = decodeQuotedPrintable(element, quotedPrintableCharset);
+        if (parseFieldDivider) {
+          element = replaceUnescapedSemicolons(element).trim();
+        }
       } else {
-        i++;
+        if (parseFieldDivider) {
+          element = replaceUnescapedSemicolons(element).trim();
+        }
+        element = unfoldAndUnescape(element);
+      }
+      return element;
+    }
+
+  }
+
+  /**
+   * @return the property whose name starts at the given line start, or null if none does
+   */
+  private static Property parseProperty(String rawText, int start) {
+    int max = rawText.length();
+    int i = start;
+    while (i < max && isNameChar(rawText.charAt(i))) {
+      i++;
+    }
+    if (i == start || i == max) {
+      return null;
+    }
+    Property property = new Property();
+    property.start = start;
+    property.nameEnd = i;
+    char c = rawText.charAt(i);
+    if (c == ';') {
+      int colon = rawText.indexOf(':', i + 1);
+      if (colon < 0) {
+        return null;
+      }
+      parseMetadata(rawText.substring(i + 1, colon), property);
+      i = colon;
+    } else if (c != ':') {
+      return null;
+    }
+    property.valueStart = i + 1;
+
+    i = property.valueStart;
+    while ((i = rawText.indexOf((int) '\n', i)) >= 0) { // Really, end in \r\n
+      if (i < rawText.length() - 1 &&           // But if followed by tab or space,
+          (rawText.charAt(i+1) == ' ' ||        // this is only a continuation
+           rawText.charAt(i+1) == '\t')) {
+        i += 2; // Skip \n and continutation whitespace
+      } else if (property.quotedPrintable &&    // If preceded by = in quoted printable
+                 ((i >= 1 && rawText.charAt(i-1) == '=') || // this is a continuation
+                  (i >= 2 && rawText.charAt(i-2) == '='))) {
+        i++; // Skip \n
+      } else {
+        break;
+      }
+    }
+    property.newline = i;
+    return property;
+  }
+
+  private static void parseMetadata(String metadataString, Property property) {
+    for (String metadatum : SEMICOLON.split(metadataString)) {
+      if (property.metadata == null) {
+        property.metadata = new ArrayList<>(1);
+      }
+      property.metadata.add(metadatum);
+      String[] metadatumTokens = EQUALS.split(metadatum, 2);
+      if (metadatumTokens.length > 1) {
+        String key = metadatumTokens[0];
+        String value = metadatumTokens[1];
+        if ("ENCODING".equalsIgnoreCase(key) && "QUOTED-PRINTABLE".equalsIgnoreCase(value)) {
+          property.quotedPrintable = true;
+        } else if ("CHARSET".equalsIgnoreCase(key)) {
+          property.quotedPrintableCharset = value;
+        }
       }
+    }
+  }
 
+  private static boolean isNameChar(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-';
+  }
+
+  /**
+   * Like {@link String#regionMatches(boolean, int, String, int, int)}, but folding ASCII letters only.
+   */
+  private static boolean regionMatchesIgnoreCase(String text, int offset, CharSequence other) {
+    int length = other.length();
+    if (offset + length > text.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char a = text.charAt(offset + i);
+      char b = other.charAt(i);
+      if (a != b && !(isAsciiLetter(a) && (a | 0x20) == (b | 0x20))) {
+        return false;
+      }
     }
+    return true;
+  }
 
-    return matches;
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
+
+  /**
+   * Replaces each run of semicolons not preceded by a backslash with a newline.
+   */
+  private static String replaceUnescapedSemicolons(String value) {
+    int semicolon = value.indexOf(';');
+    if (semicolon < 0) {
+      return value;
+    }
+    int length = value.length();
+    StringBuilder result = new StringBuilder(length);
+    result.append(value, 0, semicolon);
+    int i = semicolon;
+    while (i < length) {
+      char c = value.charAt(i);
+      if (c == ';' && (i == 0 || value.charAt(i - 1) != '\\')) {
+        result.append('\n');
+        while (i < length && value.charAt(i) == ';') {
+          i++;
+        }
+      } else {
+        result.append(c);
+        i++;
+      }
+    }
+    return result.toString();
+  }
+
+  /**
+   * Removes line folding (CR LF followed by a space or tab), then turns escaped newlines into newlines,
+   * then unescapes commas, semicolons and backslashes.
+   */
+  private static String unfoldAndUnescape(String value) {
+    if (value.indexOf('\\') < 0 && value.indexOf('\r') < 0) {
+      return value;
+    }
+    int length = value.length();
+    StringBuilder unfolded = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      if (value.startsWith("\r\n", i) && i + 2 < length
+          && (value.charAt(i + 2) == ' ' || value.charAt(i + 2) == '\t')) {
+        i += 2;
+      } else {
+        unfolded.append(value.charAt(i));
+      }
+    }
+    length = unfolded.length();
+    StringBuilder newlines = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      char c = unfolded.charAt(i);
+      if (c == '\\' && i + 1 < length && (unfolded.charAt(i + 1) == 'n' || unfolded.charAt(i + 1) == 'N')) {
+        newlines.append('\n');
+        i++;
+      } else {
+        newlines.append(c);
+      }
+    }
+    length = newlines.length();
+    StringBuilder unescaped = new StringBuilder(length);
+    for (int i = 0; i < length; i++) {
+      char c = newlines.charAt(i);
+      if (c == '\\' && i + 1 < length) {
+        char next = newlines.charAt(i + 1);
+        if (next == ',' || next == ';' || next == '\\') {
+          unescaped.append(next);
+          i++;
+          continue;
+        }
+      }
+      unescaped.append(c);
+    }
+    return unescaped.toString();
   }
 
   private static String decodeQuotedPrintable(CharSequence value, String charset) {
@@ -259,14 +432,6 @@ public final class VCardResultParser extends ResultParser {
     }
   }
 
-  static List<String> matchSingleVCardPrefixedField(CharSequence prefix,
-                                                    String rawText,
-                                                    boolean trim,
-                                                    boolean parseFieldDivider) {
-    List<List<String>> values = matchVCardPrefixedField(prefix, rawText, trim, parseFieldDivider);
-    return values == null || values.isEmpty() ? null : values.get(0);
-  }
-  
   private static String toPrimaryValue(List<String> list) {
     return list == null || list.isEmpty() ? null : list.get(0);
   }
@@ -36,25 +36,26 @@ public final class VEventResultParser extends ResultParser {
       return null;
     }
 
-    String summary = matchSingleVCardPrefixedField("SUMMARY", rawText, true);
-    String start = matchSingleVCardPrefixedField("DTSTART", rawText, true);
+    VCardResultParser.Properties properties = new VCardResultParser.Properties(rawText);
+    String summary = matchSingleVCardPrefixedField("SUMMARY", properties);
+    String start = matchSingleVCardPrefixedField("DTSTART", properties);
     if (start == null) {
       return null;
     }
-    String end = matchSingleVCardPrefixedField("DTEND", rawText, true);
-    String duration = matchSingleVCardPrefixedField("DURATION", rawText, true);
-    String location = matchSingleVCardPrefixedField("LOCATION", rawText, true);
-    String organizer = stripMailto(matchSingleVCardPrefixedField("ORGANIZER", rawText, true));
+    String end = matchSingleVCardPrefixedField("DTEND", properties);
+    String duration = matchSingleVCardPrefixedField("DURATION", properties);
+    String location = matchSingleVCardPrefixedField("LOCATION", properties);
+    String organizer = stripMailto(matchSingleVCardPrefixedField("ORGANIZER", properties));
 
-    String[] attendees = matchVCardPrefixedField("ATTENDEE", rawText, true);
+    String[] attendees = matchVCardPrefixedField("ATTENDEE", properties);
     if (attendees != null) {
       for (int i = 0; i < attendees.length; i++) {
         attendees[i] = stripMailto(attendees[i]);
       }
     }
-    String description = matchSingleVCardPrefixedField("DESCRIPTION", rawText, true);
+    String description = matchSingleVCardPrefixedField("DESCRIPTION", properties);
 
-    String geoString = matchSingleVCardPrefixedField("GEO", rawText, true);
+    String geoString = matchSingleVCardPrefixedField("GEO", properties);
     double latitude;
     double longitude;
     if (geoString == null) {
@@ -90,14 +91,13 @@ public final class VEventResultParser extends ResultParser {
   }
 
   private static String matchSingleVCardPrefixedField(CharSequence prefix,
-                                                      String rawText,
-                                                      boolean trim) {
-    List<String> values = VCardResultParser.matchSingleVCardPrefixedField(prefix, rawText, trim, false);
+                                                      VCardResultParser.Properties properties) {
+    List<String> values = properties.matchSingle(prefix, true, false);
     return values == null || values.isEmpty() ? null : values.get(0);
   }
 
-  private static String[] matchVCardPrefixedField(CharSequence prefix, String rawText, boolean trim) {
-    List<List<String>> values = VCardResultParser.matchVCardPrefixedField(prefix, rawText, trim, false);
+  private static String[] matchVCardPrefixedField(CharSequence prefix, VCardResultParser.Properties properties) {
+    List<List<String>> values = properties.match(prefix, true, false);
     if (values == null || values.isEmpty()) {
       return null;
     }
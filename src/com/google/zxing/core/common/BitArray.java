@@ -301,6 +301,20 @@ public final class BitArray implements Cloneable {
     return bits;
   }
 
+  /**
+   * Flips all bits in the array, a word at a time.
+   */
+  public void flip() {
+    int fullWords = size / 32;
+    for (int i = 0; i < fullWords; i++) {
+      bits[i] = ~bits[i];
+    }
+    int remainder = size & 0x1F;
+    if (remainder != 0) {
+      bits[fullWords] ^= (1 << remainder) - 1;
+    }
+  }
+
   /**
    * Reverses all bits in the array.
    */
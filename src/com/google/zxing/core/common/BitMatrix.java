@@ -158,6 +158,21 @@ public final class BitMatrix implements Cloneable {
     bits[offset] ^= 1 << (x & 0x1f);
   }
 
+  /**
+   * <p>Flips every bit in the matrix, a word at a time.</p>
+   */
+  public void flip() {
+    int lastWordMask = (width & 0x1f) == 0 ? -1 : (1 << (width & 0x1f)) - 1;
+    for (int offset = 0; offset < bits.length; offset += rowSize) {
+      int last = offset + rowSize - 1;
+      for (int i = offset; i < last; i++) {
+        bits[i] = ~bits[i];
+      }
+      // Leave the padding past the right edge unset
+      bits[last] ^= lastWordMask;
+    }
+  }
+
   /**
    * Exclusive-or (XOR): Flip the bit in this {@code BitMatrix} if the corresponding
    * mask bit is set.
@@ -179,6 +194,36 @@ public final class BitMatrix implements Cloneable {
     }
   }
 
+  /**
+   * Sets each bit that is set in the other matrix, a word at a time.
+   *
+   * @param other matrix of the same dimensions
+   */
+  public void or(BitMatrix other) {
+    checkSameDimensions(other);
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] |= other.bits[i];
+    }
+  }
+
+  /**
+   * Clears each bit that is not set in the other matrix, a word at a time.
+   *
+   * @param other matrix of the same dimensions
+   */
+  public void and(BitMatrix other) {
+    checkSameDimensions(other);
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] &= other.bits[i];
+    }
+  }
+
+  private void checkSameDimensions(BitMatrix other) {
+    if (width != other.width || height != other.height) {
+      throw new IllegalArgumentException("input matrix dimensions do not match");
+    }
+  }
+
   /**
    * Clears all bits (sets to false).
    */
@@ -217,6 +262,187 @@ public final class BitMatrix implements Cloneable {
     }
   }
 
+  /**
+   * <p>Checks whether no bit of a rectangular region is set, a 32-bit word at a time.</p>
+   *
+   * @param left The horizontal position to begin at (inclusive)
+   * @param top The vertical position to begin at (inclusive)
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return true iff all bits of the region are false (white)
+   */
+  public boolean isRegionClear(int left, int top, int width, int height) {
+    if (top < 0 || left < 0) {
+      throw new IllegalArgumentException("Left and top must be nonnegative");
+    }
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Height and width must be at least 1");
+    }
+    int right = left + width - 1;
+    int bottom = top + height;
+    if (bottom > this.height || right >= this.width) {
+      throw new IllegalArgumentException("The region must fit inside the matrix");
+    }
+    int firstInt = left / 32;
+    int lastInt = right / 32;
+    for (int y = top; y < bottom; y++) {
+      int offset = y * rowSize;
+      for (int i = firstInt; i <= lastInt; i++) {
+        int firstBit = i > firstInt ? 0 : left & 0x1F;
+        int lastBit = i < lastInt ? 31 : right & 0x1F;
+        // Ones from firstBit to lastBit, inclusive
+        int mask = (2 << lastBit) - (1 << firstBit);
+        if ((bits[offset + i] & mask) != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copies a rectangular region into a new matrix, a 32-bit word at a time.
+   *
+   * @param left The horizontal position to begin at (inclusive)
+   * @param top The vertical position to begin at (inclusive)
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return the region, with its top left at 0,0
+   */
+  public BitMatrix getRegion(int left, int top, int width, int height) {
+    if (top < 0 || left < 0) {
+      throw new IllegalArgumentException("Left and top must be nonnegative");
+    }
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Height and width must be at least 1");
+    }
+    if (top + height > this.height || left + width > this.width) {
+      throw new IllegalArgumentException("The region must fit inside the matrix");
+    }
+    BitMatrix region = new BitMatrix(width, height);
+    int regionRowSize = region.rowSize;
+    int shift = left & 0x1f;
+    int lastWordMask = (width & 0x1f) == 0 ? -1 : (1 << (width & 0x1f)) - 1;
+    for (int y = 0; y < height; y++) {
+      int offset = (top + y) * rowSize + (left / 32);
+      int end = (top + y + 1) * rowSize;
+      int regionOffset = y * regionRowSize;
+      for (int i = 0; i < regionRowSize; i++) {
+        int word = bits[offset + i] >>> shift;
+        if (shift != 0 && offset + i + 1 < end) {
+          word |= bits[offset + i + 1] << (32 - shift);
+        }
+        region.bits[regionOffset + i] = word;
+      }
+      // Leave the padding past the right edge unset
+      region.bits[regionOffset + regionRowSize - 1] &= lastWordMask;
+    }
+    return region;
+  }
+
+  /**
+   * @return a new matrix with the rows of this one as its columns, so that bit x,y of it is bit
+   *  y,x of this one. Transposes 32x32 blocks of bits in registers rather than bit by bit.
+   */
+  public BitMatrix transpose() {
+    return transpose(false, false);
+  }
+
+  /**
+   * @return a new matrix with the content of this one rotated by 90 degrees counterclockwise,
+   *  like {@link com.google.zxing.core.LuminanceSource#rotateCounterClockwise()}
+   */
+  public BitMatrix rotateCounterClockwise() {
+    return transpose(false, true);
+  }
+
+  /**
+   * @return a new matrix with the content of this one rotated by 90 degrees clockwise
+   */
+  public BitMatrix rotateClockwise() {
+    return transpose(true, false);
+  }
+
+  /**
+   * Transposes this matrix, after mirroring it top to bottom if {@code flipBefore}, and before
+   * doing so if {@code flipAfter}. Either makes a rotation by 90 degrees.
+   */
+  private BitMatrix transpose(boolean flipBefore, boolean flipAfter) {
+    BitMatrix result = new BitMatrix(height, width);
+    int resultRowSize = result.rowSize;
+    int[] block = new int[32];
+    for (int y32 = 0; y32 < resultRowSize; y32++) {
+      for (int x32 = 0; x32 < rowSize; x32++) {
+        for (int i = 0; i < 32; i++) {
+          int y = y32 * 32 + i;
+          if (y < height) {
+            block[i] = bits[(flipBefore ? height - 1 - y : y) * rowSize + x32];
+          } else {
+            block[i] = 0;
+          }
+        }
+        transpose32(block);
+        for (int i = 0; i < 32; i++) {
+          int x = x32 * 32 + i;
+          if (x >= width) {
+            break;
+          }
+          result.bits[(flipAfter ? width - 1 - x : x) * resultRowSize + y32] = block[i];
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Transposes a 32x32 block of bits in place, where bit j of block[i] is at column j of row i.
+   * Swaps the off-diagonal quadrants of ever smaller blocks, all of a size at once.
+   */
+  private static void transpose32(int[] block) {
+    int mask = 0x0000ffff;
+    for (int j = 16; j != 0; j >>>= 1, mask ^= mask << j) {
+      for (int k = 0; k < 32; k = (k + j + 1) & ~j) {
+        int t = ((block[k] >>> j) ^ block[k + j]) & mask;
+        block[k] ^= t << j;
+        block[k + j] ^= t;
+      }
+    }
+  }
+
+  /**
+   * @return the number of set bits in each row, indexed by y
+   */
+  public int[] getRowProjection() {
+    int[] projection = new int[height];
+    for (int y = 0; y < height; y++) {
+      int offset = y * rowSize;
+      int count = 0;
+      for (int x32 = 0; x32 < rowSize; x32++) {
+        count += Integer.bitCount(bits[offset + x32]);
+      }
+      projection[y] = count;
+    }
+    return projection;
+  }
+
+  /**
+   * @return the number of set bits in each column, indexed by x
+   */
+  public int[] getColumnProjection() {
+    int[] projection = new int[width];
+    for (int y = 0; y < height; y++) {
+      int offset = y * rowSize;
+      for (int x32 = 0; x32 < rowSize; x32++) {
+        int theBits = bits[offset + x32];
+        while (theBits != 0) {
+          projection[x32 * 32 + Integer.numberOfTrailingZeros(theBits)]++;
+          theBits &= theBits - 1;
+        }
+      }
+    }
+    return projection;
+  }
+
   /**
    * A fast method to retrieve one row of data from the matrix as a BitArray.
    *
@@ -228,13 +454,10 @@ public final class BitMatrix implements Cloneable {
   public BitArray getRow(int y, BitArray row) {
     if (row == null || row.getSize() < width) {
       row = new BitArray(width);
-    } else {
-      row.clear();
-    }
-    int offset = y * rowSize;
-    for (int x = 0; x < rowSize; x++) {
-      row.setBulk(x * 32, bits[offset + x]);
     }
+    int[] rowBits = row.getBitArray();
+    System.arraycopy(bits, y * rowSize, rowBits, 0, rowSize);
+    Arrays.fill(rowBits, rowSize, rowBits.length, 0);
     return row;
   }
 
@@ -16,6 +16,7 @@
 
 package com.google.zxing.core.common;
 
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.Map;
 
@@ -39,133 +40,271 @@ public final class StringUtils {
       SHIFT_JIS.equalsIgnoreCase(PLATFORM_DEFAULT_ENCODING) ||
       EUC_JP.equalsIgnoreCase(PLATFORM_DEFAULT_ENCODING);
 
+  // What each byte value can be in the guessed encodings, in BYTE_PROPERTIES
+  private static final int ISO88591_INVALID = 0x01;
+  private static final int ISO88591_HIGH_OTHER = 0x02;
+  private static final int SHIFT_JIS_INVALID = 0x04;
+  private static final int SHIFT_JIS_KATAKANA = 0x08;
+  private static final int SHIFT_JIS_LEAD = 0x10;
+  private static final int SHIFT_JIS_TRAIL = 0x20;
+  private static final int GB2312_LEAD = 0x40;
+  private static final int GB2312_TRAIL = 0x80;
+  private static final int GB2312_HANZI_LEAD = 0x100;
+  // Number of continuation bytes following a UTF-8 lead byte, or 0 if it is not one
+  private static final int UTF8_CONTINUATIONS_SHIFT = 9;
+
+  private static final int[] BYTE_PROPERTIES = new int[256];
+  static {
+    for (int value = 0; value < 256; value++) {
+      int properties = 0;
+      if (value > 0x7F && value < 0xA0) {
+        properties |= ISO88591_INVALID;
+      } else if (value > 0x9F && (value < 0xC0 || value == 0xD7 || value == 0xF7)) {
+        properties |= ISO88591_HIGH_OTHER;
+      }
+      if (value == 0x80 || value == 0xA0 || value > 0xEF) {
+        properties |= SHIFT_JIS_INVALID;
+      } else if (value > 0xA0 && value < 0xE0) {
+        properties |= SHIFT_JIS_KATAKANA;
+      } else if (value > 0x7F) {
+        properties |= SHIFT_JIS_LEAD;
+      }
+      if (value >= 0x40 && value != 0x7F && value <= 0xFC) {
+        properties |= SHIFT_JIS_TRAIL;
+      }
+      if (value >= 0xA1 && value <= 0xF7) {
+        properties |= GB2312_LEAD;
+      }
+      if (value >= 0xB0 && value <= 0xF7) {
+        properties |= GB2312_HANZI_LEAD;
+      }
+      if (value >= 0xA1 && value <= 0xFE) {
+        properties |= GB2312_TRAIL;
+      }
+      int continuations;
+      if (value < 0xC0) {
+        continuations = 0;
+      } else if (value < 0xE0) {
+        continuations = 1;
+      } else if (value < 0xF0) {
+        continuations = 2;
+      } else if (value < 0xF8) {
+        continuations = 3;
+      } else {
+        continuations = 0;
+      }
+      BYTE_PROPERTIES[value] = properties | continuations << UTF8_CONTINUATIONS_SHIFT;
+    }
+  }
+
   private StringUtils() {}
 
   /**
    * @param bytes bytes encoding a string, whose encoding should be guessed
    * @param hints decode hints if applicable
    * @return name of guessed encoding; at the moment will only guess one of:
-   *  {@link #SHIFT_JIS}, {@link #UTF8}, {@link #ISO88591}, or the platform
+   *  {@link #SHIFT_JIS}, {@link #GB2312}, {@link #UTF8}, {@link #ISO88591}, or the platform
    *  default encoding if none of these can possibly be correct
    */
   public static String guessEncoding(byte[] bytes, Map<DecodeHintType,?> hints) {
     if (hints != null && hints.containsKey(DecodeHintType.CHARACTER_SET)) {
       return hints.get(DecodeHintType.CHARACTER_SET).toString();
     }
-    // For now, merely tries to distinguish ISO-8859-1, UTF-8 and Shift_JIS,
+    return doGuessEncoding(bytes, null);
+  }
+
+  /**
+   * Appends the string the bytes encode to {@code result}, in the encoding named by the hints or
+   * else the one {@link #guessEncoding(byte[], Map)} guesses. Plain ASCII and UTF-8 are decoded
+   * in the same pass that guesses the encoding.
+   *
+   * @param bytes bytes encoding a string
+   * @param hints decode hints if applicable
+   * @param result receives the decoded string
+   * @return name of the encoding used
+   * @throws UnsupportedEncodingException if that encoding is not supported
+   */
+  public static String appendDecoded(byte[] bytes,
+                                     Map<DecodeHintType,?> hints,
+                                     StringBuilder result) throws UnsupportedEncodingException {
+    if (hints != null && hints.containsKey(DecodeHintType.CHARACTER_SET)) {
+      String encoding = hints.get(DecodeHintType.CHARACTER_SET).toString();
+      result.append(new String(bytes, encoding));
+      return encoding;
+    }
+    int start = result.length();
+    String encoding = doGuessEncoding(bytes, result);
+    if (result.length() > start) {
+      // Well-formed UTF-8, and so plain ASCII unless the guess is UTF-8
+      if (UTF8.equals(encoding) || ISO88591.equals(encoding)) {
+        return encoding;
+      }
+      result.setLength(start);
+    }
+    if (ISO88591.equals(encoding)) {
+      for (byte b : bytes) {
+        result.append((char) (b & 0xFF));
+      }
+    } else {
+      result.append(new String(bytes, encoding));
+    }
+    return encoding;
+  }
+
+  /**
+   * @param decoded if not null, receives the string the bytes encode if they are well-formed UTF-8
+   */
+  private static String doGuessEncoding(byte[] bytes, StringBuilder decoded) {
+    // For now, merely tries to distinguish ISO-8859-1, UTF-8, Shift_JIS and GB2312,
     // which should be by far the most common encodings.
     int length = bytes.length;
     boolean canBeISO88591 = true;
     boolean canBeShiftJIS = true;
     boolean canBeUTF8 = true;
+    boolean canBeGB2312 = true;
     int utf8BytesLeft = 0;
-    //int utf8LowChars = 0;
-    int utf2BytesChars = 0;
-    int utf3BytesChars = 0;
-    int utf4BytesChars = 0;
+    int utf8MultiByteChars = 0;
     int sjisBytesLeft = 0;
-    //int sjisLowChars = 0;
     int sjisKatakanaChars = 0;
-    //int sjisDoubleBytesChars = 0;
     int sjisCurKatakanaWordLength = 0;
     int sjisCurDoubleBytesWordLength = 0;
     int sjisMaxKatakanaWordLength = 0;
     int sjisMaxDoubleBytesWordLength = 0;
-    //int isoLowChars = 0;
-    //int isoHighChars = 0;
     int isoHighOther = 0;
+    boolean gb2312BytesLeft = false;
+    boolean gb2312Hanzi = false;
+    int gb2312CurWordLength = 0;
+    int gb2312MaxWordLength = 0;
 
     boolean utf8bom = bytes.length > 3 &&
         bytes[0] == (byte) 0xEF &&
         bytes[1] == (byte) 0xBB &&
         bytes[2] == (byte) 0xBF;
 
+    // The bytes are decoded as UTF-8 along the way, as long as they are well-formed UTF-8
+    int decodedStart = decoded == null ? 0 : decoded.length();
+    boolean decoding = decoded != null;
+    int utf8SequenceLength = 0;
+    int codePoint = 0;
+
     for (int i = 0;
-         i < length && (canBeISO88591 || canBeShiftJIS || canBeUTF8);
+         i < length && (canBeISO88591 || canBeShiftJIS || canBeUTF8 || canBeGB2312);
          i++) {
 
       int value = bytes[i] & 0xFF;
 
+      if (value < 0x80 && utf8BytesLeft == 0 && sjisBytesLeft == 0 && !gb2312BytesLeft) {
+        // ASCII, the same in all of the encodings
+        sjisCurKatakanaWordLength = 0;
+        sjisCurDoubleBytesWordLength = 0;
+        gb2312CurWordLength = 0;
+        if (decoding) {
+          decoded.append((char) value);
+        }
+        continue;
+      }
+      int properties = BYTE_PROPERTIES[value];
+
       // UTF-8 stuff
       if (canBeUTF8) {
         if (utf8BytesLeft > 0) {
-          if ((value & 0x80) == 0) {
+          if (value < 0x80) {
             canBeUTF8 = false;
+            utf8BytesLeft = 0;
           } else {
             utf8BytesLeft--;
+            if (decoding) {
+              // Continuation bytes must be 10xxxxxx to be well-formed
+              decoding = value < 0xC0;
+              codePoint = (codePoint << 6) | (value & 0x3F);
+              if (utf8BytesLeft == 0 && decoding) {
+                decoding = appendCodePoint(codePoint, utf8SequenceLength, decoded);
+              }
+            }
           }
-        } else if ((value & 0x80) != 0) {
-          if ((value & 0x40) == 0) {
+        } else if (value > 0x7F) {
+          utf8BytesLeft = properties >> UTF8_CONTINUATIONS_SHIFT;
+          if (utf8BytesLeft == 0) {
             canBeUTF8 = false;
           } else {
-            utf8BytesLeft++;
-            if ((value & 0x20) == 0) {
-              utf2BytesChars++;
-            } else {
-              utf8BytesLeft++;
-              if ((value & 0x10) == 0) {
-                utf3BytesChars++;
-              } else {
-                utf8BytesLeft++;
-                if ((value & 0x08) == 0) {
-                  utf4BytesChars++;
-                } else {
-                  canBeUTF8 = false;
-                }
-              }
-            }
+            utf8MultiByteChars++;
+            utf8SequenceLength = utf8BytesLeft + 1;
+            codePoint = value & (0x3F >> utf8BytesLeft);
           }
-        } //else {
-          //utf8LowChars++;
-        //}
+        } else if (decoding) {
+          decoded.append((char) value);
+        }
       }
 
       // ISO-8859-1 stuff
       if (canBeISO88591) {
-        if (value > 0x7F && value < 0xA0) {
+        if ((properties & ISO88591_INVALID) != 0) {
           canBeISO88591 = false;
-        } else if (value > 0x9F) {
-          if (value < 0xC0 || value == 0xD7 || value == 0xF7) {
-            isoHighOther++;
-          } //else {
-            //isoHighChars++;
-          //}
-        } //else {
-          //isoLowChars++;
-        //}
+        } else if ((properties & ISO88591_HIGH_OTHER) != 0) {
+          isoHighOther++;
+        }
       }
 
       // Shift_JIS stuff
       if (canBeShiftJIS) {
         if (sjisBytesLeft > 0) {
-          if (value < 0x40 || value == 0x7F || value > 0xFC) {
+          if ((properties & SHIFT_JIS_TRAIL) == 0) {
             canBeShiftJIS = false;
+            sjisBytesLeft = 0;
           } else {
             sjisBytesLeft--;
           }
-        } else if (value == 0x80 || value == 0xA0 || value > 0xEF) {
+        } else if ((properties & SHIFT_JIS_INVALID) != 0) {
           canBeShiftJIS = false;
-        } else if (value > 0xA0 && value < 0xE0) {
+        } else if ((properties & SHIFT_JIS_KATAKANA) != 0) {
           sjisKatakanaChars++;
           sjisCurDoubleBytesWordLength = 0;
           sjisCurKatakanaWordLength++;
           if (sjisCurKatakanaWordLength > sjisMaxKatakanaWordLength) {
             sjisMaxKatakanaWordLength = sjisCurKatakanaWordLength;
           }
-        } else if (value > 0x7F) {
+        } else if ((properties & SHIFT_JIS_LEAD) != 0) {
           sjisBytesLeft++;
-          //sjisDoubleBytesChars++;
           sjisCurKatakanaWordLength = 0;
           sjisCurDoubleBytesWordLength++;
           if (sjisCurDoubleBytesWordLength > sjisMaxDoubleBytesWordLength) {
             sjisMaxDoubleBytesWordLength = sjisCurDoubleBytesWordLength;
           }
         } else {
-          //sjisLowChars++;
           sjisCurKatakanaWordLength = 0;
           sjisCurDoubleBytesWordLength = 0;
         }
       }
+
+      // GB2312 stuff, as EUC-CN
+      if (canBeGB2312) {
+        if (gb2312BytesLeft) {
+          if ((properties & GB2312_TRAIL) == 0) {
+            canBeGB2312 = false;
+            gb2312BytesLeft = false;
+          } else if (gb2312Hanzi) {
+            gb2312BytesLeft = false;
+            gb2312CurWordLength++;
+            if (gb2312CurWordLength > gb2312MaxWordLength) {
+              gb2312MaxWordLength = gb2312CurWordLength;
+            }
+          } else {
+            // Punctuation and symbols neither make nor break a run of hanzi
+            gb2312BytesLeft = false;
+          }
+        } else if ((properties & GB2312_LEAD) != 0) {
+          gb2312BytesLeft = true;
+          gb2312Hanzi = (properties & GB2312_HANZI_LEAD) != 0;
+        } else if (value > 0x7F) {
+          canBeGB2312 = false;
+        } else {
+          gb2312CurWordLength = 0;
+        }
+      }
+
+      if (!canBeUTF8) {
+        decoding = false;
+      }
     }
 
     if (canBeUTF8 && utf8BytesLeft > 0) {
@@ -174,11 +313,29 @@ public final class StringUtils {
     if (canBeShiftJIS && sjisBytesLeft > 0) {
       canBeShiftJIS = false;
     }
+    if (canBeGB2312 && gb2312BytesLeft) {
+      canBeGB2312 = false;
+    }
+
+    if (decoded != null && (!decoding || !canBeUTF8)) {
+      decoded.setLength(decodedStart);
+    }
 
     // Easy -- if there is BOM or at least 1 valid not-single byte character (and no evidence it can't be UTF-8), done
-    if (canBeUTF8 && (utf8bom || utf2BytesChars + utf3BytesChars + utf4BytesChars > 0)) {
+    if (canBeUTF8 && (utf8bom || utf8MultiByteChars > 0)) {
       return UTF8;
     }
+    // GB2312 if not assuming Shift_JIS, there are at least 2 valid consecutive hanzi, and neither of the
+    // other readings is plausible on its own terms:
+    // - Shift_JIS half-width katakana use the same bytes as hanzi, so a Shift_JIS reading made of single
+    //   byte katakana only, or with at least 3 consecutive double byte characters, is kept;
+    // - an ISO-8859-1 reading is kept unless at least 10% of bytes are "upper" not-alphanumeric Latin1,
+    //   as in the Shift_JIS heuristic below, since GB2312 trail bytes are often such symbols in Latin1.
+    if (canBeGB2312 && !ASSUME_SHIFT_JIS && gb2312MaxWordLength >= 2
+        && !(canBeShiftJIS && (sjisMaxDoubleBytesWordLength == 0 || sjisMaxDoubleBytesWordLength >= 3))
+        && !(canBeISO88591 && isoHighOther * 10 < length)) {
+      return GB2312;
+    }
     // Easy -- if assuming Shift_JIS or at least 3 valid consecutive not-ascii characters (and no evidence it can't be), done
     if (canBeShiftJIS && (ASSUME_SHIFT_JIS || sjisMaxKatakanaWordLength >= 3 || sjisMaxDoubleBytesWordLength >= 3)) {
       return SHIFT_JIS;
@@ -207,4 +364,17 @@ public final class StringUtils {
     return PLATFORM_DEFAULT_ENCODING;
   }
 
+  /**
+   * @return false, appending nothing, if the code point decoded from a UTF-8 sequence of the given
+   *  length is not well-formed: overlong, a surrogate or out of range
+   */
+  private static boolean appendCodePoint(int codePoint, int sequenceLength, StringBuilder decoded) {
+    int minimum = sequenceLength == 2 ? 0x80 : sequenceLength == 3 ? 0x800 : 0x10000;
+    if (codePoint < minimum || (codePoint >= 0xD800 && codePoint <= 0xDFFF) || codePoint > 0x10FFFF) {
+      return false;
+    }
+    decoded.appendCodePoint(codePoint);
+    return true;
+  }
+
 }
@@ -42,6 +42,7 @@ public final class WhiteRectangleDetector {
   private final int rightInit;
   private final int downInit;
   private final int upInit;
+  private final int centerX;
 
   public WhiteRectangleDetector(BitMatrix image) throws NotFoundException {
     this(image, INIT_SIZE, image.getWidth() / 2, image.getHeight() / 2);
@@ -50,7 +51,8 @@ public final class WhiteRectangleDetector {
   /**
    * @param image barcode image to find a rectangle in
    * @param initSize initial size of search area around center
-   * @param x x position of search center
+   * @param x x position of search center, which the orientation of the corners found is judged
+   *  against
    * @param y y position of search center
    * @throws NotFoundException if image is too small to accommodate {@code initSize}
    */
@@ -63,6 +65,7 @@ public final class WhiteRectangleDetector {
     rightInit = x + halfsize;
     upInit = y - halfsize;
     downInit = y + halfsize;
+    centerX = x;
     if (upInit < 0 || leftInit < 0 || downInit >= height || rightInit >= width) {
       throw NotFoundException.getNotFoundInstance();
     }
@@ -296,7 +299,10 @@ public final class WhiteRectangleDetector {
     float ti = t.getX();
     float tj = t.getY();
 
-    if (yi < width / 2.0f) {
+    // Judged against the search center rather than the image center: for a code away from the
+    // middle of the image, the image center says nothing about which way it is turned. The two
+    // are the same for searches started at the image center.
+    if (yi < centerX) {
       return new ResultPoint[]{
           new ResultPoint(ti - CORR, tj + CORR),
           new ResultPoint(zi + CORR, zj + CORR),
@@ -321,22 +327,10 @@ public final class WhiteRectangleDetector {
    * @return true if a black point has been found, else false.
    */
   private boolean containsBlackPoint(int a, int b, int fixed, boolean horizontal) {
-
     if (horizontal) {
-      for (int x = a; x <= b; x++) {
-        if (image.get(x, fixed)) {
-          return true;
-        }
-      }
-    } else {
-      for (int y = a; y <= b; y++) {
-        if (image.get(fixed, y)) {
-          return true;
-        }
-      }
+      return !image.isRegionClear(a, fixed, b - a + 1, 1);
     }
-
-    return false;
+    return !image.isRegionClear(fixed, a, 1, b - a + 1);
   }
 
 }
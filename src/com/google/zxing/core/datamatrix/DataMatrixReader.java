@@ -20,6 +20,7 @@ import com.google.zxing.core.BarcodeFormat;
 import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.ChecksumException;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -62,15 +63,29 @@ public final class DataMatrixReader implements Reader {
   @Override
   public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    BitMatrix matrix;
+    try {
+      matrix = image.getBlackMatrix();
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+    }
     DecoderResult decoderResult;
     ResultPoint[] points;
     if (hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE)) {
-      BitMatrix bits = extractPureBits(image.getBlackMatrix());
-      decoderResult = decoder.decode(bits);
+      BitMatrix bits = extractPureBits(matrix);
+      decoderResult = decoder.decode(bits, hints);
       points = NO_POINTS;
     } else {
-      DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect();
-      decoderResult = decoder.decode(detectorResult.getBits());
+      start = DecodeMetrics.start(metrics);
+      DetectorResult detectorResult;
+      try {
+        detectorResult = new Detector(matrix).detect();
+      } finally {
+        DecodeMetrics.stop(metrics, DecodeMetrics.Stage.DETECTION, start);
+      }
+      decoderResult = decoder.decode(detectorResult.getBits(), hints);
       points = detectorResult.getPoints();
     }
     Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
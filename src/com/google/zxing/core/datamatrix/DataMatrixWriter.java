@@ -24,6 +24,7 @@ import com.google.zxing.core.common.BitMatrix;
 import com.google.zxing.core.datamatrix.encoder.DefaultPlacement;
 import com.google.zxing.core.datamatrix.encoder.ErrorCorrection;
 import com.google.zxing.core.datamatrix.encoder.HighLevelEncoder;
+import com.google.zxing.core.datamatrix.encoder.MinimalEncoder;
 import com.google.zxing.core.datamatrix.encoder.SymbolInfo;
 import com.google.zxing.core.datamatrix.encoder.SymbolShapeHint;
 import com.google.zxing.core.qrcode.encoder.ByteMatrix;
@@ -62,6 +63,7 @@ public final class DataMatrixWriter implements Writer {
     SymbolShapeHint shape = SymbolShapeHint.FORCE_NONE;
     Dimension minSize = null;
     Dimension maxSize = null;
+    boolean compact = false;
     if (hints != null) {
       SymbolShapeHint requestedShape = (SymbolShapeHint) hints.get(EncodeHintType.DATA_MATRIX_SHAPE);
       if (requestedShape != null) {
@@ -77,11 +79,16 @@ public final class DataMatrixWriter implements Writer {
       if (requestedMaxSize != null) {
         maxSize = requestedMaxSize;
       }
+      if (hints.containsKey(EncodeHintType.DATA_MATRIX_COMPACT)) {
+        compact = Boolean.valueOf(hints.get(EncodeHintType.DATA_MATRIX_COMPACT).toString());
+      }
     }
 
 
     //1. step: Data encodation
-    String encoded = HighLevelEncoder.encodeHighLevel(contents, shape, minSize, maxSize);
+    String encoded = compact ?
+        MinimalEncoder.encodeHighLevel(contents, shape, minSize, maxSize) :
+        HighLevelEncoder.encodeHighLevel(contents, shape, minSize, maxSize);
 
     SymbolInfo symbolInfo = SymbolInfo.lookup(encoded.length(), shape, minSize, maxSize, true);
 
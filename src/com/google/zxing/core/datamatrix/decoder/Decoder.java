@@ -17,6 +17,8 @@
 package com.google.zxing.core.datamatrix.decoder;
 
 import com.google.zxing.core.ChecksumException;
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.common.BitMatrix;
 import com.google.zxing.core.common.DecoderResult;
@@ -24,6 +26,8 @@ import com.google.zxing.core.common.reedsolomon.GenericGF;
 import com.google.zxing.core.common.reedsolomon.ReedSolomonDecoder;
 import com.google.zxing.core.common.reedsolomon.ReedSolomonException;
 
+import java.util.Map;
+
 /**
  * <p>The main class which implements Data Matrix Code decoding -- as opposed to locating and extracting
  * the Data Matrix Code from an image.</p>
@@ -70,6 +74,21 @@ public final class Decoder {
    * @throws ChecksumException if error correction fails
    */
   public DecoderResult decode(BitMatrix bits) throws FormatException, ChecksumException {
+    return decode(bits, null);
+  }
+
+  /**
+   * <p>Decodes a Data Matrix Code represented as a {@link BitMatrix}. A 1 or "true" is taken
+   * to mean a black module.</p>
+   *
+   * @param bits booleans representing white/black Data Matrix Code modules
+   * @param hints decoding hints that should be used to influence decoding
+   * @return text and bytes encoded within the Data Matrix Code
+   * @throws FormatException if the Data Matrix Code cannot be decoded
+   * @throws ChecksumException if error correction fails
+   */
+  public DecoderResult decode(BitMatrix bits, Map<DecodeHintType,?> hints)
+      throws FormatException, ChecksumException {
 
     // Construct a parser and read version, error-correction level
     BitMatrixParser parser = new BitMatrixParser(bits);
@@ -90,19 +109,32 @@ public final class Decoder {
     byte[] resultBytes = new byte[totalBytes];
 
     // Error-correct and copy data blocks together into a stream of bytes
-    for (int j = 0; j < dataBlocksCount; j++) {
-      DataBlock dataBlock = dataBlocks[j];
-      byte[] codewordBytes = dataBlock.getCodewords();
-      int numDataCodewords = dataBlock.getNumDataCodewords();
-      correctErrors(codewordBytes, numDataCodewords);
-      for (int i = 0; i < numDataCodewords; i++) {
-        // De-interlace data blocks.
-        resultBytes[i * dataBlocksCount + j] = codewordBytes[i];
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    int errorsCorrected = 0;
+    try {
+      for (int j = 0; j < dataBlocksCount; j++) {
+        DataBlock dataBlock = dataBlocks[j];
+        byte[] codewordBytes = dataBlock.getCodewords();
+        int numDataCodewords = dataBlock.getNumDataCodewords();
+        errorsCorrected += correctErrors(codewordBytes, numDataCodewords);
+        for (int i = 0; i < numDataCodewords; i++) {
+          // De-interlace data blocks.
+          resultBytes[i * dataBlocksCount + j] = codewordBytes[i];
+        }
       }
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ERROR_CORRECTION, start);
     }
+    DecodeMetrics.count(metrics, DecodeMetrics.Counter.ERRORS_CORRECTED, errorsCorrected);
 
     // Decode the contents of that stream of bytes
-    return DecodedBitStreamParser.decode(resultBytes);
+    start = DecodeMetrics.start(metrics);
+    try {
+      return DecodedBitStreamParser.decode(resultBytes);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BITSTREAM_PARSING, start);
+    }
   }
 
   /**
@@ -111,9 +143,10 @@ public final class Decoder {
    *
    * @param codewordBytes data and error correction codewords
    * @param numDataCodewords number of codewords that are data bytes
+   * @return number of errors corrected
    * @throws ChecksumException if error correction fails
    */
-  private void correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
+  private int correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
     int numCodewords = codewordBytes.length;
     // First read into an array of ints
     int[] codewordsInts = new int[numCodewords];
@@ -121,8 +154,9 @@ public final class Decoder {
       codewordsInts[i] = codewordBytes[i] & 0xFF;
     }
     int numECCodewords = codewordBytes.length - numDataCodewords;
+    int errorsCorrected;
     try {
-      rsDecoder.decode(codewordsInts, numECCodewords);
+      errorsCorrected = rsDecoder.decode(codewordsInts, numECCodewords);
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
@@ -131,6 +165,7 @@ public final class Decoder {
     for (int i = 0; i < numDataCodewords; i++) {
       codewordBytes[i] = (byte) codewordsInts[i];
     }
+    return errorsCorrected;
   }
 
 }
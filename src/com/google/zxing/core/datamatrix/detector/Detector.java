@@ -40,12 +40,30 @@ import java.util.Map;
  */
 public final class Detector {
 
+  private static final int INIT_SIZE = 10;
+
   private final BitMatrix image;
   private final WhiteRectangleDetector rectangleDetector;
+  private final boolean fromCenter;
+  // Transition counts along the lines traced so far by detect()
+  private final List<ResultPointsAndTransitions> traced = new ArrayList<>();
 
   public Detector(BitMatrix image) throws NotFoundException {
     this.image = image;
     rectangleDetector = new WhiteRectangleDetector(image);
+    fromCenter = true;
+  }
+
+  /**
+   * @param image image to detect a Data Matrix Code in
+   * @param x x position to start searching from, which should be inside the code
+   * @param y y position to start searching from, which should be inside the code
+   * @throws NotFoundException if the position is too close to the edge of the image
+   */
+  public Detector(BitMatrix image, int x, int y) throws NotFoundException {
+    this.image = image;
+    rectangleDetector = new WhiteRectangleDetector(image, INIT_SIZE, x, y);
+    fromCenter = false;
   }
 
   /**
@@ -56,7 +74,17 @@ public final class Detector {
    */
   public DetectorResult detect() throws NotFoundException {
 
-    ResultPoint[] cornerPoints = rectangleDetector.detect();
+    traced.clear();
+    ResultPoint[] cornerPoints;
+    try {
+      cornerPoints = rectangleDetector.detect();
+    } catch (NotFoundException nfe) {
+      if (!fromCenter) {
+        throw nfe;
+      }
+      // Nothing around the center; start again from where the image is densest
+      cornerPoints = detectFromProjections(nfe);
+    }
     ResultPoint pointA = cornerPoints[0];
     ResultPoint pointB = cornerPoints[1];
     ResultPoint pointC = cornerPoints[2];
@@ -213,6 +241,45 @@ public final class Detector {
     return new DetectorResult(bits, new ResultPoint[]{topLeft, bottomLeft, bottomRight, correctedTopRight});
   }
 
+  /**
+   * Runs the rectangle detector from the point where the most black pixels are, judging by row
+   * and column projections of the image. The solid "L" sides of a Data Matrix Code stand out
+   * there even when the code is far from the center.
+   */
+  private ResultPoint[] detectFromProjections(NotFoundException notFound) throws NotFoundException {
+    int x = densestWindowCenter(image.getColumnProjection());
+    int y = densestWindowCenter(image.getRowProjection());
+    int halfSize = INIT_SIZE / 2;
+    if (Math.abs(x - image.getWidth() / 2) <= halfSize && Math.abs(y - image.getHeight() / 2) <= halfSize) {
+      // Same start as before
+      throw notFound;
+    }
+    x = Math.max(halfSize, Math.min(image.getWidth() - 1 - halfSize, x));
+    y = Math.max(halfSize, Math.min(image.getHeight() - 1 - halfSize, y));
+    return new WhiteRectangleDetector(image, INIT_SIZE, x, y).detect();
+  }
+
+  /**
+   * @return center of the window of an eighth of the projection's length with the highest sum
+   */
+  private static int densestWindowCenter(int[] projection) {
+    int window = Math.max(1, projection.length / 8);
+    int sum = 0;
+    for (int i = 0; i < window; i++) {
+      sum += projection[i];
+    }
+    int maxSum = sum;
+    int maxStart = 0;
+    for (int i = window; i < projection.length; i++) {
+      sum += projection[i] - projection[i - window];
+      if (sum > maxSum) {
+        maxSum = sum;
+        maxStart = i - window + 1;
+      }
+    }
+    return maxStart + window / 2;
+  }
+
   /**
    * Calculates the position of the white top right module using the output of the rectangle detector
    * for a rectangular matrix
@@ -351,8 +418,20 @@ public final class Detector {
 
   /**
    * Counts the number of black/white transitions between two points, using something like Bresenham's algorithm.
+   * Lines already traced by this detection are not traced again.
    */
   private ResultPointsAndTransitions transitionsBetween(ResultPoint from, ResultPoint to) {
+    for (ResultPointsAndTransitions line : traced) {
+      if (line.getFrom().equals(from) && line.getTo().equals(to)) {
+        return line;
+      }
+    }
+    ResultPointsAndTransitions line = traceTransitions(from, to);
+    traced.add(line);
+    return line;
+  }
+
+  private ResultPointsAndTransitions traceTransitions(ResultPoint from, ResultPoint to) {
     // See QR Code Detector, sizeOfBlackWhiteBlackRun()
     int fromX = (int) from.getX();
     int fromY = (int) from.getY();
@@ -167,7 +167,7 @@ class C40Encoder implements Encoder {
     }
   }
 
-  private static String encodeToCodewords(CharSequence sb, int startPos) {
+  static String encodeToCodewords(CharSequence sb, int startPos) {
     char c1 = sb.charAt(startPos);
     char c2 = sb.charAt(startPos + 1);
     char c3 = sb.charAt(startPos + 2);
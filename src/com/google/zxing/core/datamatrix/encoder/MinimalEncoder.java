@@ -0,0 +1,486 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.datamatrix.encoder;
+
+import com.google.zxing.core.Dimension;
+
+import java.util.Arrays;
+
+/**
+ * <p>DataMatrix ECC 200 data encoder that chooses the encodation modes yielding the fewest
+ * codewords, instead of following the look-ahead heuristic of annex P of ISO/IEC 16022:2006
+ * like {@link HighLevelEncoder} does.</p>
+ *
+ * <p>The choice is a shortest path search over the message positions. At each position the
+ * encoder is in ASCII, in Base 256, or in C40, Text, X12 or EDIFACT with a number of values
+ * still waiting to complete a triplet or quadruplet. Every state keeps the cheapest codeword
+ * count reaching it, so the whole message is encoded in a single pass, in time linear in its
+ * length. The end of the message is chosen last, as the one fitting the smallest symbol; some
+ * endings need no unlatch, but only when the symbol has no or little room left.</p>
+ */
+public final class MinimalEncoder {
+
+  // States; C40, Text and X12 take three states each and EDIFACT four, by number of pending values
+  private static final int ASCII = 0;
+  private static final int C40 = 1;
+  private static final int TEXT = 4;
+  private static final int X12 = 7;
+  private static final int EDIFACT = 10;
+  private static final int BASE256 = 14;
+  private static final int STATE_COUNT = 15;
+
+  private static final int UNREACHED = Integer.MAX_VALUE / 2;
+  private static final int MAX_BASE256_SHORT_LENGTH = 249;
+  private static final int MAX_BASE256_LENGTH = 1555;
+  private static final char EDIFACT_UNLATCH = 31;
+
+  private final String text;
+  private final int header;
+  private final int[] costs;
+  // Previous state, shifted left by two, plus the number of characters consumed from it
+  private final int[] previous;
+
+  private int endNode;
+  private int endCharacters;
+  private SymbolInfo endSymbol;
+
+  private MinimalEncoder(String text, int header) {
+    this.text = text;
+    this.header = header;
+    costs = new int[(text.length() + 1) * STATE_COUNT];
+    previous = new int[costs.length];
+    findCosts();
+  }
+
+  /**
+   * Performs message encoding of a DataMatrix message with the fewest codewords.
+   *
+   * @param msg     the message
+   * @param shape   requested shape. May be {@code SymbolShapeHint.FORCE_NONE},
+   *                {@code SymbolShapeHint.FORCE_SQUARE} or {@code SymbolShapeHint.FORCE_RECTANGLE}.
+   * @param minSize the minimum symbol size constraint or null for no constraint
+   * @param maxSize the maximum symbol size constraint or null for no constraint
+   * @return the encoded message (the char values range from 0 to 255)
+   */
+  public static String encodeHighLevel(String msg,
+                                       SymbolShapeHint shape,
+                                       Dimension minSize,
+                                       Dimension maxSize) {
+    String message = new EncoderContext(msg).getMessage();
+    StringBuilder codewords = new StringBuilder(message.length());
+    int start = 0;
+    int end = message.length();
+    if (message.startsWith(HighLevelEncoder.MACRO_05_HEADER)
+        && message.endsWith(HighLevelEncoder.MACRO_TRAILER)) {
+      codewords.append(HighLevelEncoder.MACRO_05);
+      start = HighLevelEncoder.MACRO_05_HEADER.length();
+      end -= HighLevelEncoder.MACRO_TRAILER.length();
+    } else if (message.startsWith(HighLevelEncoder.MACRO_06_HEADER)
+        && message.endsWith(HighLevelEncoder.MACRO_TRAILER)) {
+      codewords.append(HighLevelEncoder.MACRO_06);
+      start = HighLevelEncoder.MACRO_06_HEADER.length();
+      end -= HighLevelEncoder.MACRO_TRAILER.length();
+    }
+
+    String text = message.substring(start, Math.max(start, end));
+    MinimalEncoder encoder = new MinimalEncoder(text, codewords.length());
+    encoder.findEnd(shape, minSize, maxSize);
+    encoder.appendCodewords(codewords);
+
+    int capacity = encoder.endSymbol.getDataCapacity();
+    int last = encoder.endNode % STATE_COUNT;
+    if (codewords.length() < capacity && encoder.endCharacters == 0 && last >= C40 && last < EDIFACT) {
+      codewords.append(HighLevelEncoder.C40_UNLATCH); // the same codeword for Text and X12
+    }
+    //Padding
+    if (codewords.length() < capacity) {
+      codewords.append(HighLevelEncoder.PAD);
+    }
+    while (codewords.length() < capacity) {
+      codewords.append(HighLevelEncoder.randomize253State(HighLevelEncoder.PAD, codewords.length() + 1));
+    }
+    return codewords.toString();
+  }
+
+  /**
+   * Finds the cheapest codeword count, not counting the header, for every position and state.
+   */
+  private void findCosts() {
+    int length = text.length();
+    Arrays.fill(costs, UNREACHED);
+    // Bytes so far in the Base 256 segment reaching each position
+    int[] base256Counts = new int[length + 1];
+    C40Encoder c40Encoder = new C40Encoder();
+    TextEncoder textEncoder = new TextEncoder();
+    StringBuilder values = new StringBuilder(4);
+
+    costs[ASCII] = 0;
+    for (int i = 0; i <= length; i++) {
+      int at = i * STATE_COUNT;
+      for (int state = C40; state < STATE_COUNT; state++) {
+        int unlatchCost = getUnlatchCost(state);
+        if (unlatchCost >= 0) {
+          relax(at + ASCII, costs[at + state] + unlatchCost, state, 0);
+        }
+      }
+      int ascii = costs[at + ASCII];
+      relax(at + C40, ascii + 1, ASCII, 0);
+      relax(at + TEXT, ascii + 1, ASCII, 0);
+      relax(at + X12, ascii + 1, ASCII, 0);
+      relax(at + EDIFACT, ascii + 1, ASCII, 0);
+      if (relax(at + BASE256, ascii + 2, ASCII, 0)) {
+        base256Counts[i] = 0;
+      }
+      if (i == length) {
+        break;
+      }
+
+      char c = text.charAt(i);
+      int next = at + STATE_COUNT;
+      if (i + 1 < length && HighLevelEncoder.isDigit(c) && HighLevelEncoder.isDigit(text.charAt(i + 1))) {
+        relax(next + STATE_COUNT + ASCII, ascii + 1, ASCII, 2);
+      }
+      relax(next + ASCII, ascii + (HighLevelEncoder.isExtendedASCII(c) ? 2 : 1), ASCII, 1);
+
+      values.setLength(0);
+      int c40Values = c40Encoder.encodeChar(c, values);
+      values.setLength(0);
+      int textValues = textEncoder.encodeChar(c, values);
+      boolean x12 = HighLevelEncoder.isNativeX12(c);
+      for (int pending = 0; pending < 3; pending++) {
+        int total = pending + c40Values;
+        relax(next + C40 + total % 3, costs[at + C40 + pending] + total / 3 * 2, C40 + pending, 1);
+        total = pending + textValues;
+        relax(next + TEXT + total % 3, costs[at + TEXT + pending] + total / 3 * 2, TEXT + pending, 1);
+        if (x12) {
+          total = pending + 1;
+          relax(next + X12 + total % 3, costs[at + X12 + pending] + total / 3 * 2, X12 + pending, 1);
+        }
+      }
+      if (HighLevelEncoder.isNativeEDIFACT(c)) {
+        for (int pending = 0; pending < 4; pending++) {
+          int total = pending + 1;
+          relax(next + EDIFACT + total % 4, costs[at + EDIFACT + pending] + total / 4 * 3,
+              EDIFACT + pending, 1);
+        }
+      }
+      int base256Count = base256Counts[i];
+      int base256Cost = base256Count == MAX_BASE256_SHORT_LENGTH ? 2 : 1; // a second length byte from 250 on
+      if (relax(next + BASE256, costs[at + BASE256] + base256Cost, BASE256, 1)) {
+        base256Counts[i + 1] = base256Count + 1;
+      }
+    }
+  }
+
+  private boolean relax(int node, int cost, int fromState, int consumed) {
+    if (cost < costs[node]) {
+      costs[node] = cost;
+      previous[node] = fromState << 2 | consumed;
+      return true;
+    }
+    return false;
+  }
+
+  private int getPrevious(int node) {
+    return (node / STATE_COUNT - (previous[node] & 3)) * STATE_COUNT + (previous[node] >> 2);
+  }
+
+  /**
+   * @return codewords needed to return to ASCII from the state, or -1 if that is not possible
+   */
+  private static int getUnlatchCost(int state) {
+    if (state == BASE256) {
+      return 0;
+    }
+    if (state >= EDIFACT) {
+      // The unlatch value and the pending values, in as many bytes as they take
+      return Math.min(state - EDIFACT + 1, 3);
+    }
+    if (state >= X12) {
+      return state == X12 ? 1 : -1;
+    }
+    switch ((state - C40) % 3) {
+      case 0:
+        return 1;
+      case 2:
+        return 3; // a Shift 1 value completes the triplet
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * @return codewords needed to end the message in the state, or -1 if it must not end there
+   */
+  private static int getEndCost(int state) {
+    if (state == ASCII || state == BASE256) {
+      return 0;
+    }
+    if (state >= EDIFACT) {
+      return -1;
+    }
+    if (state >= X12) {
+      return state == X12 ? 0 : -1;
+    }
+    switch ((state - C40) % 3) {
+      case 0:
+        return 0;
+      case 2:
+        return 2;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Chooses the end of the message fitting the smallest symbol. Besides ending in a state that
+   * allows it, the decoder reads the last codeword after a C40, Text or X12 triplet as ASCII if
+   * it is the only one left in the symbol, and the last two after an EDIFACT quadruplet.
+   */
+  private void findEnd(SymbolShapeHint shape, Dimension minSize, Dimension maxSize) {
+    int length = text.length();
+    int at = length * STATE_COUNT;
+    for (int state = ASCII; state < STATE_COUNT; state++) {
+      int endCost = getEndCost(state);
+      if (endCost >= 0) {
+        considerEnd(at + state, 0, endCost, Integer.MAX_VALUE, shape, minSize, maxSize);
+      }
+    }
+    considerEnd(at + EDIFACT, 0, 0, 2, shape, minSize, maxSize);
+    for (int characters = 1; characters <= 2 && characters <= length; characters++) {
+      int at2 = (length - characters) * STATE_COUNT;
+      int asciiCost = getAsciiCost(length - characters, length);
+      if (asciiCost == 1) {
+        considerEnd(at2 + C40, characters, 1, 1, shape, minSize, maxSize);
+        considerEnd(at2 + TEXT, characters, 1, 1, shape, minSize, maxSize);
+        considerEnd(at2 + X12, characters, 1, 1, shape, minSize, maxSize);
+      }
+      if (asciiCost <= 2) {
+        considerEnd(at2 + EDIFACT, characters, asciiCost, 2, shape, minSize, maxSize);
+      }
+    }
+    if (endSymbol == null) {
+      throw new IllegalArgumentException(
+          "Can't find a symbol arrangement that matches the message. Data codewords: "
+              + (header + costs[at + ASCII]));
+    }
+  }
+
+  /**
+   * @param node       the last state, as {@code position * STATE_COUNT + state}
+   * @param characters characters after that position, written in ASCII
+   * @param endCost    codewords after reaching the state
+   * @param room       the most codewords the symbol may have after reaching the state
+   */
+  private void considerEnd(int node, int characters, int endCost, int room,
+                           SymbolShapeHint shape, Dimension minSize, Dimension maxSize) {
+    int cost = costs[node];
+    if (cost >= UNREACHED) {
+      return;
+    }
+    int length = header + cost + endCost;
+    SymbolInfo symbol = SymbolInfo.lookup(Math.max(length, getMinCapacity(node)), shape, minSize, maxSize, false);
+    if (symbol == null || symbol.getDataCapacity() - (header + cost) > room) {
+      return;
+    }
+    if (endSymbol == null || symbol.getDataCapacity() < endSymbol.getDataCapacity()) {
+      endNode = node;
+      endCharacters = characters;
+      endSymbol = symbol;
+    }
+  }
+
+  private int getAsciiCost(int start, int end) {
+    if (end - start == 2 && HighLevelEncoder.isDigit(text.charAt(start))
+        && HighLevelEncoder.isDigit(text.charAt(start + 1))) {
+      return 1;
+    }
+    int cost = 0;
+    for (int i = start; i < end; i++) {
+      cost += HighLevelEncoder.isExtendedASCII(text.charAt(i)) ? 2 : 1;
+    }
+    return cost;
+  }
+
+  /**
+   * @return the least data capacity for the decoder to read the EDIFACT unlatches of one or two
+   *  bytes on the path to the node; with two bytes or less left it reads them as ASCII
+   */
+  private int getMinCapacity(int node) {
+    int minCapacity = 0;
+    while (node != ASCII) {
+      int from = getPrevious(node);
+      int fromState = from % STATE_COUNT;
+      if (node % STATE_COUNT == ASCII && (fromState == EDIFACT || fromState == EDIFACT + 1)) {
+        minCapacity = Math.max(minCapacity, header + costs[from] + 3);
+      }
+      node = from;
+    }
+    return minCapacity;
+  }
+
+  /**
+   * @return the states of the chosen encoding, each as {@code position * STATE_COUNT + state}
+   */
+  private int[] getPath() {
+    // At most three states per position: reached by a character, unlatched, latched
+    int[] path = new int[3 * (text.length() + 1)];
+    int count = 0;
+    int node = endNode;
+    path[count++] = node;
+    while (node != ASCII) {
+      node = getPrevious(node);
+      path[count++] = node;
+    }
+    int[] result = new int[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = path[count - 1 - i];
+    }
+    return result;
+  }
+
+  /**
+   * Writes the codewords of the chosen encoding, not including a final unlatch.
+   */
+  private void appendCodewords(StringBuilder codewords) {
+    C40Encoder c40Encoder = new C40Encoder();
+    TextEncoder textEncoder = new TextEncoder();
+    X12Encoder x12Encoder = new X12Encoder();
+    // Values of the current triplet or quadruplet, or the bytes of the current Base 256 segment
+    StringBuilder buffer = new StringBuilder();
+
+    int[] path = getPath();
+    for (int i = 1; i < path.length; i++) {
+      int from = path[i - 1] % STATE_COUNT;
+      int to = path[i] % STATE_COUNT;
+      int position = path[i - 1] / STATE_COUNT;
+      int consumed = path[i] / STATE_COUNT - position;
+      if (consumed == 0) {
+        if (to != ASCII) {
+          codewords.append(getLatch(to));
+        } else if (from == BASE256) {
+          appendBase256(buffer, codewords);
+        } else if (from >= EDIFACT) {
+          buffer.append(EDIFACT_UNLATCH);
+          codewords.append(EdifactEncoder.encodeToCodewords(buffer, 0));
+          buffer.setLength(0);
+        } else {
+          appendTriplets(buffer, codewords, true);
+          codewords.append(HighLevelEncoder.C40_UNLATCH);
+        }
+        continue;
+      }
+
+      char c = text.charAt(position);
+      if (from == ASCII) {
+        appendAscii(position, consumed, codewords);
+      } else if (from == BASE256) {
+        buffer.append(c);
+      } else if (from >= EDIFACT) {
+        EdifactEncoder.encodeChar(c, buffer);
+        if (buffer.length() == 4) {
+          codewords.append(EdifactEncoder.encodeToCodewords(buffer, 0));
+          buffer.setLength(0);
+        }
+      } else {
+        if (from >= X12) {
+          x12Encoder.encodeChar(c, buffer);
+        } else if (from >= TEXT) {
+          textEncoder.encodeChar(c, buffer);
+        } else {
+          c40Encoder.encodeChar(c, buffer);
+        }
+        appendTriplets(buffer, codewords, false);
+      }
+    }
+
+    int last = endNode % STATE_COUNT;
+    if (last == BASE256) {
+      appendBase256(buffer, codewords);
+    } else if (last != ASCII) {
+      appendTriplets(buffer, codewords, true);
+    }
+    int position = endNode / STATE_COUNT;
+    if (endCharacters == 2 && getAsciiCost(position, position + 2) == 1) {
+      appendAscii(position, 2, codewords);
+    } else {
+      for (int i = 0; i < endCharacters; i++) {
+        appendAscii(position + i, 1, codewords);
+      }
+    }
+  }
+
+  private void appendAscii(int position, int characters, StringBuilder codewords) {
+    char c = text.charAt(position);
+    if (characters == 2) {
+      codewords.append((char) ((c - '0') * 10 + text.charAt(position + 1) - '0' + 130));
+    } else if (HighLevelEncoder.isExtendedASCII(c)) {
+      codewords.append(HighLevelEncoder.UPPER_SHIFT);
+      codewords.append((char) (c - 128 + 1));
+    } else {
+      codewords.append((char) (c + 1));
+    }
+  }
+
+  private static char getLatch(int state) {
+    if (state == BASE256) {
+      return HighLevelEncoder.LATCH_TO_BASE256;
+    }
+    if (state >= EDIFACT) {
+      return HighLevelEncoder.LATCH_TO_EDIFACT;
+    }
+    if (state >= X12) {
+      return HighLevelEncoder.LATCH_TO_ANSIX12;
+    }
+    if (state >= TEXT) {
+      return HighLevelEncoder.LATCH_TO_TEXT;
+    }
+    return HighLevelEncoder.LATCH_TO_C40;
+  }
+
+  /**
+   * Writes the complete triplets of C40, Text or X12 values in the buffer, completing a last
+   * triplet of two values with a Shift 1 value if requested.
+   */
+  private static void appendTriplets(StringBuilder buffer, StringBuilder codewords, boolean complete) {
+    if (complete && buffer.length() % 3 == 2) {
+      buffer.append('\0'); //Shift 1
+    }
+    int triplets = buffer.length() / 3 * 3;
+    for (int i = 0; i < triplets; i += 3) {
+      codewords.append(C40Encoder.encodeToCodewords(buffer, i));
+    }
+    buffer.delete(0, triplets);
+  }
+
+  private static void appendBase256(StringBuilder buffer, StringBuilder codewords) {
+    int dataCount = buffer.length();
+    if (dataCount <= MAX_BASE256_SHORT_LENGTH) {
+      buffer.insert(0, (char) dataCount);
+    } else if (dataCount <= MAX_BASE256_LENGTH) {
+      buffer.insert(0, (char) ((dataCount / 250) + 249));
+      buffer.insert(1, (char) (dataCount % 250));
+    } else {
+      throw new IllegalStateException("Message length not in valid ranges: " + dataCount);
+    }
+    for (int i = 0, c = buffer.length(); i < c; i++) {
+      codewords.append(Base256Encoder.randomize255State(buffer.charAt(i), codewords.length() + 1));
+    }
+    buffer.setLength(0);
+  }
+
+}
@@ -20,6 +20,7 @@ import com.google.zxing.core.BarcodeFormat;
 import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.ChecksumException;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -67,7 +68,15 @@ public final class MaxiCodeReader implements Reader {
       throws NotFoundException, ChecksumException, FormatException {
     DecoderResult decoderResult;
     if (hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE)) {
-      BitMatrix bits = extractPureBits(image.getBlackMatrix());
+      DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+      long start = DecodeMetrics.start(metrics);
+      BitMatrix matrix;
+      try {
+        matrix = image.getBlackMatrix();
+      } finally {
+        DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+      }
+      BitMatrix bits = extractPureBits(matrix);
       decoderResult = decoder.decode(bits, hints);
     } else {
       throw NotFoundException.getNotFoundInstance();
@@ -18,6 +18,7 @@ package com.google.zxing.core.maxicode.decoder;
 
 import com.google.zxing.core.ChecksumException;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.common.BitMatrix;
 import com.google.zxing.core.common.DecoderResult;
@@ -54,37 +55,51 @@ public final class Decoder {
     BitMatrixParser parser = new BitMatrixParser(bits);
     byte[] codewords = parser.readCodewords();
 
-    correctErrors(codewords, 0, 10, 10, ALL);
-    int mode = codewords[0] & 0x0F;
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    int errorsCorrected;
+    int mode;
     byte[] datawords;
-    switch (mode) {
-      case 2:
-      case 3:
-      case 4:
-        correctErrors(codewords, 20, 84, 40, EVEN);
-        correctErrors(codewords, 20, 84, 40, ODD);
-        datawords = new byte[94];
-        break;
-      case 5:
-        correctErrors(codewords, 20, 68, 56, EVEN);
-        correctErrors(codewords, 20, 68, 56, ODD);
-        datawords = new byte[78];
-        break;
-      default:
-        throw FormatException.getFormatInstance();
+    try {
+      errorsCorrected = correctErrors(codewords, 0, 10, 10, ALL);
+      mode = codewords[0] & 0x0F;
+      switch (mode) {
+        case 2:
+        case 3:
+        case 4:
+          errorsCorrected += correctErrors(codewords, 20, 84, 40, EVEN);
+          errorsCorrected += correctErrors(codewords, 20, 84, 40, ODD);
+          datawords = new byte[94];
+          break;
+        case 5:
+          errorsCorrected += correctErrors(codewords, 20, 68, 56, EVEN);
+          errorsCorrected += correctErrors(codewords, 20, 68, 56, ODD);
+          datawords = new byte[78];
+          break;
+        default:
+          throw FormatException.getFormatInstance();
+      }
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ERROR_CORRECTION, start);
     }
+    DecodeMetrics.count(metrics, DecodeMetrics.Counter.ERRORS_CORRECTED, errorsCorrected);
 
     System.arraycopy(codewords, 0, datawords, 0, 10);
     System.arraycopy(codewords, 20, datawords, 10, datawords.length - 10);
 
-    return DecodedBitStreamParser.decode(datawords, mode);
+    start = DecodeMetrics.start(metrics);
+    try {
+      return DecodedBitStreamParser.decode(datawords, mode);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BITSTREAM_PARSING, start);
+    }
   }
 
-  private void correctErrors(byte[] codewordBytes,
-                             int start,
-                             int dataCodewords,
-                             int ecCodewords,
-                             int mode) throws ChecksumException {
+  private int correctErrors(byte[] codewordBytes,
+                            int start,
+                            int dataCodewords,
+                            int ecCodewords,
+                            int mode) throws ChecksumException {
     int codewords = dataCodewords + ecCodewords;
 
     // in EVEN or ODD mode only half the codewords
@@ -97,8 +112,9 @@ public final class Decoder {
         codewordsInts[i / divisor] = codewordBytes[i + start] & 0xFF;
       }
     }
+    int errorsCorrected;
     try {
-      rsDecoder.decode(codewordsInts, ecCodewords / divisor);
+      errorsCorrected = rsDecoder.decode(codewordsInts, ecCodewords / divisor);
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
@@ -109,6 +125,7 @@ public final class Decoder {
         codewordBytes[i + start] = (byte) codewordsInts[i / divisor];
       }
     }
+    return errorsCorrected;
   }
 
 }
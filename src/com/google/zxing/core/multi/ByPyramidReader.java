@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.multi;
+
+import com.google.zxing.core.BinaryBitmap;
+import com.google.zxing.core.ChecksumException;
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DownsampledLuminanceSource;
+import com.google.zxing.core.FormatException;
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.Reader;
+import com.google.zxing.core.ReaderException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultPoint;
+
+import java.util.Map;
+
+/**
+ * This class attempts to decode a barcode from downsampled copies of an image before the image
+ * itself, coarsest first. A barcode that is large in the image is then found from a quarter or a
+ * sixteenth of the pixels; small barcodes fall through to the full resolution attempt.
+ * Result points are given in full resolution coordinates.
+ *
+ * @see DownsampledLuminanceSource
+ */
+public final class ByPyramidReader implements Reader {
+
+  private static final int DEFAULT_LEVELS = 2;
+  private static final int MIN_DIMENSION = 120;
+
+  private final Reader delegate;
+  private final int levels;
+
+  public ByPyramidReader(Reader delegate) {
+    this(delegate, DEFAULT_LEVELS);
+  }
+
+  /**
+   * @param delegate reader to decode each level with
+   * @param levels number of downsampled levels to try, each half the size of the previous one.
+   *  Levels whose smaller side would be under {@value #MIN_DIMENSION} pixels are skipped.
+   */
+  public ByPyramidReader(Reader delegate, int levels) {
+    this.delegate = delegate;
+    this.levels = levels;
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image)
+      throws NotFoundException, ChecksumException, FormatException {
+    return decode(image, null);
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    BinaryBitmap[] pyramid = new BinaryBitmap[levels];
+    int count = 0;
+    BinaryBitmap level = image.downsample();
+    while (count < levels && Math.min(level.getWidth(), level.getHeight()) >= MIN_DIMENSION) {
+      pyramid[count++] = level;
+      level = level.downsample();
+    }
+
+    for (int i = count - 1; i >= 0; i--) {
+      try {
+        Result result = delegate.decode(pyramid[i], hints);
+        makeAbsolute(result.getResultPoints(), 2 << i);
+        return result;
+      } catch (ReaderException re) {
+        // continue
+      }
+    }
+    return delegate.decode(image, hints);
+  }
+
+  @Override
+  public void reset() {
+    delegate.reset();
+  }
+
+  private static void makeAbsolute(ResultPoint[] points, int scale) {
+    if (points != null) {
+      for (int i = 0; i < points.length; i++) {
+        ResultPoint relative = points[i];
+        if (relative != null) {
+          points[i] = new ResultPoint(relative.getX() * scale, relative.getY() * scale);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.multi;
+
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Shared by the {@link MultipleBarcodeReader}s that decode the symbols they find in an image
+ * independently of each other, optionally on an {@link ExecutorService}.
+ */
+public final class ConcurrentDecoding {
+
+  private ConcurrentDecoding() {
+  }
+
+  /**
+   * Submits each task to the executor and collects their results in task order. Tasks that
+   * fail with a {@link com.google.zxing.core.ReaderException} are skipped.
+   *
+   * @param executor executor to run the tasks on
+   * @param tasks one decode task per symbol
+   * @return results of the tasks that succeeded
+   * @throws NotFoundException if the calling thread is interrupted while waiting, rather than
+   *  returning only the results collected so far; the thread's interrupt status is restored
+   *  and the remaining tasks are cancelled
+   */
+  public static List<Result> decodeAll(ExecutorService executor, List<Callable<Result>> tasks)
+      throws NotFoundException {
+    List<Future<Result>> futures = new ArrayList<>(tasks.size());
+    for (Callable<Result> task : tasks) {
+      futures.add(executor.submit(task));
+    }
+    List<Result> results = new ArrayList<>(futures.size());
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results.add(futures.get(i).get());
+      } catch (ExecutionException ee) {
+        Throwable cause = ee.getCause();
+        if (cause instanceof RuntimeException) {
+          cancelFrom(futures, i + 1);
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          cancelFrom(futures, i + 1);
+          throw (Error) cause;
+        }
+        // ReaderException: ignore and continue
+      } catch (InterruptedException ie) {
+        cancelFrom(futures, i);
+        Thread.currentThread().interrupt();
+        throw NotFoundException.getNotFoundInstance();
+      }
+    }
+    return results;
+  }
+
+  private static void cancelFrom(List<Future<Result>> futures, int start) {
+    for (int i = start; i < futures.size(); i++) {
+      futures.get(i).cancel(true);
+    }
+  }
+
+  /**
+   * Drops results whose text and raw bytes equal those of an earlier result, as happens when a
+   * detector reports the same symbol twice.
+   */
+  public static List<Result> removeDuplicates(List<Result> results) {
+    if (results.size() < 2) {
+      return results;
+    }
+    Map<String,List<Result>> byText = new HashMap<>();
+    List<Result> unique = new ArrayList<>(results.size());
+    for (Result result : results) {
+      List<Result> sameText = byText.get(result.getText());
+      if (sameText == null) {
+        sameText = new ArrayList<>(1);
+        byText.put(result.getText(), sameText);
+      }
+      boolean alreadyFound = false;
+      for (Result existing : sameText) {
+        if (Arrays.equals(existing.getRawBytes(), result.getRawBytes())) {
+          alreadyFound = true;
+          break;
+        }
+      }
+      if (!alreadyFound) {
+        sameText.add(result);
+        unique.add(result);
+      }
+    }
+    return unique;
+  }
+
+}
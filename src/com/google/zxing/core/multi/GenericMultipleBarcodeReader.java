@@ -17,6 +17,7 @@
 package com.google.zxing.core.multi;
 
 import com.google.zxing.core.BinaryBitmap;
+import com.google.zxing.core.DecodeBudget;
 import com.google.zxing.core.DecodeHintType;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -78,6 +79,11 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     if (currentDepth > MAX_DEPTH) {
       return;
     }
+    // Out of time; keep what has been found so far
+    DecodeBudget budget = DecodeBudget.fromHints(hints);
+    if (budget != null && budget.isExhausted()) {
+      return;
+    }
     
     Result result;
     try {
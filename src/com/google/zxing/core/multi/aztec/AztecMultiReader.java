@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.multi.aztec;
+
+import com.google.zxing.core.BarcodeFormat;
+import com.google.zxing.core.BinaryBitmap;
+import com.google.zxing.core.DecodeBudget;
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.FormatException;
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultMetadataType;
+import com.google.zxing.core.ResultPoint;
+import com.google.zxing.core.aztec.AztecDetectorResult;
+import com.google.zxing.core.aztec.decoder.Decoder;
+import com.google.zxing.core.aztec.detector.BullsEyeFinder;
+import com.google.zxing.core.aztec.detector.Detector;
+import com.google.zxing.core.common.BitMatrix;
+import com.google.zxing.core.common.DecoderResult;
+import com.google.zxing.core.multi.MultipleBarcodeReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This implementation can detect and decode multiple Aztec codes in an image. Each bull's eye
+ * found by a {@link BullsEyeFinder} is detected and decoded on its own.
+ */
+public final class AztecMultiReader implements MultipleBarcodeReader {
+
+  private static final Result[] EMPTY_RESULT_ARRAY = new Result[0];
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
+    return decodeMultiple(image, null);
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    BitMatrix matrix = image.getBlackMatrix();
+    ResultPoint[] centers = new BullsEyeFinder(matrix).find();
+    Detector detector = new Detector(matrix);
+    List<Result> results = new ArrayList<>();
+    for (ResultPoint center : centers) {
+      Result result = decodeAt(detector, center, hints);
+      if (result != null) {
+        results.add(result);
+      }
+    }
+    if (results.isEmpty()) {
+      return EMPTY_RESULT_ARRAY;
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  /**
+   * @return the code whose bull's eye is at {@code center}, read as is or mirrored, or
+   *  {@code null} if neither can be decoded or the decode budget in the hints is exhausted, in
+   *  which case the results found so far are kept
+   */
+  private static Result decodeAt(Detector detector, ResultPoint center, Map<DecodeHintType,?> hints) {
+    DecodeBudget budget = DecodeBudget.fromHints(hints);
+    for (int mirror = 0; mirror < 2; mirror++) {
+      try {
+        DecodeBudget.check(budget);
+        AztecDetectorResult detectorResult = detector.detect(center, mirror == 1);
+        DecoderResult decoderResult = new Decoder().decode(detectorResult, hints);
+        Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(),
+                                   detectorResult.getPoints(), BarcodeFormat.AZTEC);
+        List<byte[]> byteSegments = decoderResult.getByteSegments();
+        if (byteSegments != null) {
+          result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
+        }
+        String ecLevel = decoderResult.getECLevel();
+        if (ecLevel != null) {
+          result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
+        }
+        return result;
+      } catch (NotFoundException | FormatException e) {
+        // try mirrored, then give up on this bull's eye
+      }
+    }
+    return null;
+  }
+
+}
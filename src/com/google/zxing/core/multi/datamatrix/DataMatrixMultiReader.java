@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.multi.datamatrix;
+
+import com.google.zxing.core.BarcodeFormat;
+import com.google.zxing.core.BinaryBitmap;
+import com.google.zxing.core.DecodeBudget;
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.ReaderException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultMetadataType;
+import com.google.zxing.core.ResultPoint;
+import com.google.zxing.core.common.DecoderResult;
+import com.google.zxing.core.common.DetectorResult;
+import com.google.zxing.core.datamatrix.decoder.Decoder;
+import com.google.zxing.core.multi.ConcurrentDecoding;
+import com.google.zxing.core.multi.MultipleBarcodeReader;
+import com.google.zxing.core.multi.datamatrix.detector.MultiDetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * This implementation can detect and decode multiple Data Matrix codes in an image, such as
+ * a tray of labelled parts or a sheet of printed labels.
+ *
+ * @see MultiDetector
+ */
+public final class DataMatrixMultiReader implements MultipleBarcodeReader {
+
+  private static final Result[] EMPTY_RESULT_ARRAY = new Result[0];
+
+  private final Decoder decoder = new Decoder();
+  private final ExecutorService executor;
+
+  public DataMatrixMultiReader() {
+    this(null);
+  }
+
+  /**
+   * @param executor if not {@code null}, candidate regions found in the image are detected and
+   *  decoded concurrently on this executor. It should be bounded, typically by the number of
+   *  available processors. The caller remains responsible for shutting it down.
+   */
+  public DataMatrixMultiReader(ExecutorService executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
+    return decodeMultiple(image, null);
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    MultiDetector detector = new MultiDetector(image.getBlackMatrix());
+    ResultPoint[] candidates = detector.findCandidates();
+    List<Result> results;
+    if (executor == null || candidates.length < 2) {
+      results = new ArrayList<>();
+      for (ResultPoint candidate : candidates) {
+        try {
+          results.add(decodeCandidate(detector, candidate, hints));
+        } catch (ReaderException re) {
+          // ignore and continue
+        }
+      }
+    } else {
+      results = decodeConcurrently(detector, candidates, hints);
+    }
+    results = ConcurrentDecoding.removeDuplicates(results);
+    if (results.isEmpty()) {
+      return EMPTY_RESULT_ARRAY;
+    }
+    return results.toArray(new Result[results.size()]);
+  }
+
+  /**
+   * @throws NotFoundException if the decode budget in the hints is exhausted, so that the
+   *  remaining candidates are skipped and the results found so far are kept
+   */
+  private Result decodeCandidate(MultiDetector detector, ResultPoint candidate, Map<DecodeHintType,?> hints)
+      throws ReaderException {
+    DecodeBudget.check(DecodeBudget.fromHints(hints));
+    DetectorResult detectorResult = detector.detect(candidate);
+    DecoderResult decoderResult = decoder.decode(detectorResult.getBits(), hints);
+    Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(),
+        detectorResult.getPoints(), BarcodeFormat.DATA_MATRIX);
+    List<byte[]> byteSegments = decoderResult.getByteSegments();
+    if (byteSegments != null) {
+      result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
+    }
+    String ecLevel = decoderResult.getECLevel();
+    if (ecLevel != null) {
+      result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
+    }
+    return result;
+  }
+
+  /**
+   * Detects and decodes the candidate regions on {@link #executor}. Neither the detector, which
+   * only reads the image, nor the {@link Decoder} keeps per-call state, so the tasks can share them.
+   */
+  private List<Result> decodeConcurrently(final MultiDetector detector, ResultPoint[] candidates,
+                                          final Map<DecodeHintType,?> hints) throws NotFoundException {
+    List<Callable<Result>> tasks = new ArrayList<>(candidates.length);
+    for (final ResultPoint candidate : candidates) {
+      tasks.add(new Callable<Result>() {
+        @Override
+        public Result call() throws ReaderException {
+          return decodeCandidate(detector, candidate, hints);
+        }
+      });
+    }
+    return ConcurrentDecoding.decodeAll(executor, tasks);
+  }
+
+}
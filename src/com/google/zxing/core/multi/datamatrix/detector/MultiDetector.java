@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.multi.datamatrix.detector;
+
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.ResultPoint;
+import com.google.zxing.core.common.BitArray;
+import com.google.zxing.core.common.BitMatrix;
+import com.google.zxing.core.common.DetectorResult;
+import com.google.zxing.core.datamatrix.detector.Detector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Encapsulates logic that can detect several Data Matrix Codes in an image.</p>
+ *
+ * <p>The image is divided into small blocks in one pass over the black matrix, and blocks
+ * holding any black pixel are grouped into 8-connected regions. Codes are surrounded by a
+ * quiet zone, so each one ends up in its own region, and the center of each region that is
+ * large enough is a place to start a {@link Detector} from.</p>
+ */
+public final class MultiDetector {
+
+  private static final DetectorResult[] EMPTY_DETECTOR_RESULTS = new DetectorResult[0];
+  private static final int BLOCK_SIZE_POWER = 2;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER; // ...0100...00
+  private static final int BLOCK_MASK = BLOCK_SIZE - 1;        // ...0011...11
+  private static final int MIN_BLOCKS = 3;
+  private static final int MAX_ASPECT_RATIO = 4;
+
+  private final BitMatrix image;
+
+  public MultiDetector(BitMatrix image) {
+    this.image = image;
+  }
+
+  /**
+   * @return centers of the regions that may each hold a Data Matrix Code, in image coordinates
+   */
+  public ResultPoint[] findCandidates() {
+    int blocksWide = image.getWidth() >> BLOCK_SIZE_POWER;
+    int blocksHigh = image.getHeight() >> BLOCK_SIZE_POWER;
+    if (blocksWide == 0 || blocksHigh == 0) {
+      return new ResultPoint[0];
+    }
+
+    boolean[] black = new boolean[blocksWide * blocksHigh];
+    BitArray row = null;
+    for (int y = 0; y < blocksHigh << BLOCK_SIZE_POWER; y++) {
+      row = image.getRow(y, row);
+      int[] words = row.getBitArray();
+      int offset = (y >> BLOCK_SIZE_POWER) * blocksWide;
+      for (int i = 0; i < words.length; i++) {
+        int theBits = words[i];
+        while (theBits != 0) {
+          int blockX = (i * 32 + Integer.numberOfTrailingZeros(theBits)) >> BLOCK_SIZE_POWER;
+          if (blockX >= blocksWide) {
+            break;
+          }
+          black[offset + blockX] = true;
+          // Skip the remaining bits of this block
+          int nextBlockBit = ((blockX + 1) << BLOCK_SIZE_POWER) - i * 32;
+          theBits = nextBlockBit >= 32 ? 0 : theBits & (-1 << nextBlockBit);
+        }
+      }
+    }
+
+    List<ResultPoint> candidates = new ArrayList<>();
+    int[] stack = new int[black.length];
+    for (int start = 0; start < black.length; start++) {
+      if (!black[start]) {
+        continue;
+      }
+      // Flood fill this region, clearing its blocks as they are visited
+      black[start] = false;
+      int stackSize = 0;
+      stack[stackSize++] = start;
+      int minX = blocksWide;
+      int minY = blocksHigh;
+      int maxX = -1;
+      int maxY = -1;
+      while (stackSize > 0) {
+        int block = stack[--stackSize];
+        int blockX = block % blocksWide;
+        int blockY = block / blocksWide;
+        minX = Math.min(minX, blockX);
+        minY = Math.min(minY, blockY);
+        maxX = Math.max(maxX, blockX);
+        maxY = Math.max(maxY, blockY);
+        for (int dy = -1; dy <= 1; dy++) {
+          int ny = blockY + dy;
+          if (ny < 0 || ny >= blocksHigh) {
+            continue;
+          }
+          for (int dx = -1; dx <= 1; dx++) {
+            int nx = blockX + dx;
+            if (nx < 0 || nx >= blocksWide) {
+              continue;
+            }
+            int neighbor = ny * blocksWide + nx;
+            if (black[neighbor]) {
+              black[neighbor] = false;
+              stack[stackSize++] = neighbor;
+            }
+          }
+        }
+      }
+      int regionWidth = maxX - minX + 1;
+      int regionHeight = maxY - minY + 1;
+      if (regionWidth < MIN_BLOCKS || regionHeight < MIN_BLOCKS ||
+          regionWidth > MAX_ASPECT_RATIO * regionHeight || regionHeight > MAX_ASPECT_RATIO * regionWidth) {
+        continue;
+      }
+      candidates.add(new ResultPoint(((minX + maxX + 1) << BLOCK_SIZE_POWER) / 2.0f,
+                                     ((minY + maxY + 1) << BLOCK_SIZE_POWER) / 2.0f));
+    }
+    return candidates.toArray(new ResultPoint[candidates.size()]);
+  }
+
+  /**
+   * @param candidate a point returned by {@link #findCandidates()}
+   * @return {@link DetectorResult} encapsulating results of detecting a Data Matrix Code there
+   * @throws NotFoundException if no Data Matrix Code can be found there
+   */
+  public DetectorResult detect(ResultPoint candidate) throws NotFoundException {
+    return new Detector(image, (int) candidate.getX(), (int) candidate.getY()).detect();
+  }
+
+  /**
+   * @return {@link DetectorResult}s of all Data Matrix Codes found
+   * @throws NotFoundException if no candidate region is found at all
+   */
+  public DetectorResult[] detectMulti() throws NotFoundException {
+    ResultPoint[] candidates = findCandidates();
+    if (candidates.length == 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    List<DetectorResult> result = new ArrayList<>();
+    for (ResultPoint candidate : candidates) {
+      try {
+        result.add(detect(candidate));
+      } catch (NotFoundException e) {
+        // ignore
+      }
+    }
+    if (result.isEmpty()) {
+      return EMPTY_DETECTOR_RESULTS;
+    }
+    return result.toArray(new DetectorResult[result.size()]);
+  }
+
+}
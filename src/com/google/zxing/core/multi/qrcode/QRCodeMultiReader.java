@@ -26,18 +26,19 @@ import com.google.zxing.core.ResultMetadataType;
 import com.google.zxing.core.ResultPoint;
 import com.google.zxing.core.common.DecoderResult;
 import com.google.zxing.core.common.DetectorResult;
+import com.google.zxing.core.multi.ConcurrentDecoding;
 import com.google.zxing.core.multi.MultipleBarcodeReader;
 import com.google.zxing.core.multi.qrcode.detector.MultiDetector;
 import com.google.zxing.core.qrcode.QRCodeReader;
 import com.google.zxing.core.qrcode.decoder.QRCodeDecoderMetaData;
 
-import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This implementation can detect and decode multiple QR Codes in an image.
@@ -49,6 +50,22 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
 
   private static final Result[] EMPTY_RESULT_ARRAY = new Result[0];
   private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
+  private static final int MAX_SEQUENCE_NUMBER = 0xFF;
+
+  private final ExecutorService executor;
+
+  public QRCodeMultiReader() {
+    this(null);
+  }
+
+  /**
+   * @param executor if not {@code null}, symbols found by the detector are decoded concurrently
+   *  on this executor. It should be bounded, typically by the number of available processors.
+   *  The caller remains responsible for shutting it down.
+   */
+  public QRCodeMultiReader(ExecutorService executor) {
+    this.executor = executor;
+  }
 
   @Override
   public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
@@ -57,37 +74,21 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
 
   @Override
   public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
-    List<Result> results = new ArrayList<>();
     DetectorResult[] detectorResults = new MultiDetector(image.getBlackMatrix()).detectMulti(hints);
-    for (DetectorResult detectorResult : detectorResults) {
-      try {
-        DecoderResult decoderResult = getDecoder().decode(detectorResult.getBits(), hints);
-        ResultPoint[] points = detectorResult.getPoints();
-        // If the code was mirrored: swap the bottom-left and the top-right points.
-        if (decoderResult.getOther() instanceof QRCodeDecoderMetaData) {
-          ((QRCodeDecoderMetaData) decoderResult.getOther()).applyMirroredCorrection(points);
-        }
-        Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
-                                   BarcodeFormat.QR_CODE);
-        List<byte[]> byteSegments = decoderResult.getByteSegments();
-        if (byteSegments != null) {
-          result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
-        }
-        String ecLevel = decoderResult.getECLevel();
-        if (ecLevel != null) {
-          result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
-        }
-        if (decoderResult.hasStructuredAppend()) {
-          result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE,
-                             decoderResult.getStructuredAppendSequenceNumber());
-          result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_PARITY,
-                             decoderResult.getStructuredAppendParity());
+    List<Result> results;
+    if (executor == null || detectorResults.length < 2) {
+      results = new ArrayList<>();
+      for (DetectorResult detectorResult : detectorResults) {
+        try {
+          results.add(decodeDetected(detectorResult, hints));
+        } catch (ReaderException re) {
+          // ignore and continue 
         }
-        results.add(result);
-      } catch (ReaderException re) {
-        // ignore and continue 
       }
+    } else {
+      results = decodeConcurrently(detectorResults, hints);
     }
+    results = ConcurrentDecoding.removeDuplicates(results);
     if (results.isEmpty()) {
       return EMPTY_RESULT_ARRAY;
     } else {
@@ -96,6 +97,52 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     }
   }
 
+  private Result decodeDetected(DetectorResult detectorResult, Map<DecodeHintType,?> hints)
+      throws ReaderException {
+    DecoderResult decoderResult = getDecoder().decode(detectorResult.getBits(), hints);
+    ResultPoint[] points = detectorResult.getPoints();
+    // If the code was mirrored: swap the bottom-left and the top-right points.
+    if (decoderResult.getOther() instanceof QRCodeDecoderMetaData) {
+      ((QRCodeDecoderMetaData) decoderResult.getOther()).applyMirroredCorrection(points);
+    }
+    Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
+                               BarcodeFormat.QR_CODE);
+    List<byte[]> byteSegments = decoderResult.getByteSegments();
+    if (byteSegments != null) {
+      result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
+    }
+    String ecLevel = decoderResult.getECLevel();
+    if (ecLevel != null) {
+      result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
+    }
+    if (decoderResult.hasStructuredAppend()) {
+      result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE,
+                         decoderResult.getStructuredAppendSequenceNumber());
+      result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_PARITY,
+                         decoderResult.getStructuredAppendParity());
+    }
+    return result;
+  }
+
+  /**
+   * Decodes the detected symbols on {@link #executor}. The
+   * {@link com.google.zxing.core.qrcode.decoder.Decoder} keeps no per-call state, so the tasks can
+   * share it.
+   */
+  private List<Result> decodeConcurrently(DetectorResult[] detectorResults,
+                                          final Map<DecodeHintType,?> hints) throws NotFoundException {
+    List<Callable<Result>> tasks = new ArrayList<>(detectorResults.length);
+    for (final DetectorResult detectorResult : detectorResults) {
+      tasks.add(new Callable<Result>() {
+        @Override
+        public Result call() throws ReaderException {
+          return decodeDetected(detectorResult, hints);
+        }
+      });
+    }
+    return ConcurrentDecoding.decodeAll(executor, tasks);
+  }
+
   private static List<Result> processStructuredAppend(List<Result> results) {
     boolean hasSA = false;
 
@@ -119,8 +166,16 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
         saResults.add(result);
       }
     }
-    // sort and concatenate the SA list items
-    Collections.sort(saResults, new SAComparator());
+    // order and concatenate the SA list items
+    newResults.add(concatenateStructuredAppend(orderBySequence(saResults)));
+    return newResults;
+  }
+
+  /**
+   * Concatenates the text, raw bytes and byte segments of structured append parts that are
+   * already in sequence order into a single result.
+   */
+  static Result concatenateStructuredAppend(List<Result> saResults) {
     StringBuilder concatedText = new StringBuilder();
     int rawBytesLen = 0;
     int byteSegmentLength = 0;
@@ -159,23 +214,31 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
       byteSegmentList.add(newByteSegment);
       newResult.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegmentList);
     }
-    newResults.add(newResult);
-    return newResults;
+    return newResult;
   }
 
-  private static final class SAComparator implements Comparator<Result>, Serializable {
-    @Override
-    public int compare(Result a, Result b) {
-      int aNumber = (int) (a.getResultMetadata().get(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE));
-      int bNumber = (int) (b.getResultMetadata().get(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE));
-      if (aNumber < bNumber) {
-        return -1;
-      }
-      if (aNumber > bNumber) {
-        return 1;
-      }
-      return 0;
+  /**
+   * Orders structured append results by their sequence number. The number is a single byte, so a
+   * stable counting sort does this in linear time.
+   */
+  private static List<Result> orderBySequence(List<Result> saResults) {
+    int[] starts = new int[MAX_SEQUENCE_NUMBER + 2];
+    for (Result saResult : saResults) {
+      starts[sequenceNumber(saResult) + 1]++;
     }
+    for (int i = 1; i < starts.length; i++) {
+      starts[i] += starts[i - 1];
+    }
+    Result[] ordered = new Result[saResults.size()];
+    for (Result saResult : saResults) {
+      ordered[starts[sequenceNumber(saResult)]++] = saResult;
+    }
+    return Arrays.asList(ordered);
+  }
+
+  private static int sequenceNumber(Result result) {
+    return ((Integer) result.getResultMetadata().get(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE))
+        & MAX_SEQUENCE_NUMBER;
   }
 
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.multi.qrcode;
+
+import com.google.zxing.core.FormatException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultMetadataType;
+import com.google.zxing.core.common.StringUtils;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * <p>Collects the parts of a structured append QR Code message as they are decoded, possibly
+ * from successive camera frames, and produces the concatenated message once every part
+ * has been seen.</p>
+ *
+ * <p>The structured append header carries the position of the symbol in the upper four bits
+ * of its sequence number, the total number of symbols less one in the lower four bits, and a
+ * parity byte shared by all symbols of one message: the XOR of all bytes of the message. A part
+ * whose total or parity differs from the parts collected so far starts a new message, and a
+ * complete message whose bytes do not match the parity is dropped.</p>
+ *
+ * <p>Instances are not thread-safe; keep one per decoding thread.</p>
+ */
+public final class StructuredAppendAssembler {
+
+  private static final int MAX_PARTS = 16;
+  // Encodings the message text may have been decoded from, to recover its bytes
+  private static final String[] MESSAGE_ENCODINGS =
+      { "ISO8859_1", "UTF8", StringUtils.SHIFT_JIS, StringUtils.GB2312 };
+
+  private final Result[] parts = new Result[MAX_PARTS];
+  private int parity;
+  private int total;
+  private int collected;
+
+  public StructuredAppendAssembler() {
+    reset();
+  }
+
+  /**
+   * Tells whether a result adds nothing to the message being assembled, so that a caller can
+   * look for the other parts elsewhere. The header is only known once the symbol is decoded,
+   * so this does not save decoding it.
+   *
+   * @param result a decoded result
+   * @return true iff the result is a structured append part that belongs to the message being
+   *  assembled and whose position has already been collected
+   */
+  public boolean isCollected(Result result) {
+    Map<ResultMetadataType,Object> metadata = result.getResultMetadata();
+    if (metadata == null || !metadata.containsKey(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE)) {
+      return false;
+    }
+    int sequence = (Integer) metadata.get(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE);
+    int resultParity = (Integer) metadata.get(ResultMetadataType.STRUCTURED_APPEND_PARITY);
+    return resultParity == parity && (sequence & 0x0F) + 1 == total && parts[sequence >> 4] != null;
+  }
+
+  /**
+   * Adds a decoded result to the message being assembled.
+   *
+   * @param result a decoded result
+   * @return the concatenated message if this result completed it; {@code result} itself if it
+   *  is not part of a structured append message; {@code null} if parts are still missing, or if
+   *  the completed message did not match its parity and its parts were dropped
+   * @throws FormatException if the header places the result beyond the number of parts it gives
+   */
+  public Result add(Result result) throws FormatException {
+    Map<ResultMetadataType,Object> metadata = result.getResultMetadata();
+    if (metadata == null || !metadata.containsKey(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE)) {
+      return result;
+    }
+    int sequence = (Integer) metadata.get(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE);
+    int resultParity = (Integer) metadata.get(ResultMetadataType.STRUCTURED_APPEND_PARITY);
+    int position = sequence >> 4;
+    int resultTotal = (sequence & 0x0F) + 1;
+    if (position >= resultTotal) {
+      throw FormatException.getFormatInstance();
+    }
+    if (resultParity != parity || resultTotal != total) {
+      // A different message; drop whatever was collected for the previous one
+      reset();
+      parity = resultParity;
+      total = resultTotal;
+    }
+    if (parts[position] == null) {
+      parts[position] = result;
+      collected++;
+    }
+    if (collected < total) {
+      return null;
+    }
+    Result message = QRCodeMultiReader.concatenateStructuredAppend(Arrays.asList(parts).subList(0, total));
+    boolean valid = matchesParity(message, parity);
+    reset();
+    return valid ? message : null;
+  }
+
+  /**
+   * The parity covers the bytes of the message before it was decoded to text. Those are the byte
+   * segments if the message is all binary, and otherwise the text in the encoding it was decoded
+   * from, which is not recorded; any of the encodings QR Codes are decoded from is accepted.
+   */
+  private static boolean matchesParity(Result message, int parity) {
+    Map<ResultMetadataType,Object> metadata = message.getResultMetadata();
+    if (metadata != null && metadata.containsKey(ResultMetadataType.BYTE_SEGMENTS)) {
+      @SuppressWarnings("unchecked")
+      Iterable<byte[]> byteSegments = (Iterable<byte[]>) metadata.get(ResultMetadataType.BYTE_SEGMENTS);
+      int segmentsParity = 0;
+      for (byte[] segment : byteSegments) {
+        segmentsParity ^= parity(segment);
+      }
+      if (segmentsParity == parity) {
+        return true;
+      }
+    }
+    String text = message.getText();
+    for (String encoding : MESSAGE_ENCODINGS) {
+      if (parity(text.getBytes(Charset.forName(encoding))) == parity) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int parity(byte[] bytes) {
+    int parity = 0;
+    for (byte b : bytes) {
+      parity ^= b & 0xFF;
+    }
+    return parity;
+  }
+
+  /**
+   * @return number of distinct parts collected for the message being assembled
+   */
+  public int getCollectedParts() {
+    return collected;
+  }
+
+  /**
+   * @return number of parts in the message being assembled, or 0 if no part has been added
+   */
+  public int getTotalParts() {
+    return total;
+  }
+
+  /**
+   * Discards all collected parts.
+   */
+  public void reset() {
+    Arrays.fill(parts, null);
+    parity = -1;
+    total = 0;
+    collected = 0;
+  }
+
+}
@@ -16,6 +16,7 @@
 
 package com.google.zxing.core.multi.qrcode.detector;
 
+import com.google.zxing.core.DecodeBudget;
 import com.google.zxing.core.DecodeHintType;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.ResultPoint;
@@ -231,6 +232,7 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
   public FinderPatternInfo[] findMulti(Map<DecodeHintType,?> hints) throws NotFoundException {
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     boolean pureBarcode = hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE);
+    DecodeBudget budget = DecodeBudget.fromHints(hints);
     BitMatrix image = getImage();
     int maxI = image.getHeight();
     int maxJ = image.getWidth();
@@ -248,6 +250,7 @@ final class MultiFinderPatternFinder extends FinderPatternFinder {
 
     int[] stateCount = new int[5];
     for (int i = iSkip - 1; i < maxI; i += iSkip) {
+      DecodeBudget.check(budget);
       // Get a row of black/white values
       stateCount[0] = 0;
       stateCount[1] = 0;
@@ -18,7 +18,9 @@ package com.google.zxing.core.oned;
 
 import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.ChecksumException;
+import com.google.zxing.core.DecodeBudget;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -27,9 +29,11 @@ import com.google.zxing.core.Result;
 import com.google.zxing.core.ResultMetadataType;
 import com.google.zxing.core.ResultPoint;
 import com.google.zxing.core.common.BitArray;
+import com.google.zxing.core.common.BitMatrix;
 
 import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -41,22 +45,52 @@ import java.util.Map;
  */
 public abstract class OneDReader implements Reader {
 
+  // Angles of the lines scanned with TRY_ANGLED, in degrees clockwise from the rows
+  private static final int[] SCAN_ANGLES = {45, -45, 30, -30, 60, -60, 15, -15, 75, -75};
+  private static final float[] SCAN_COS = new float[SCAN_ANGLES.length];
+  private static final float[] SCAN_SIN = new float[SCAN_ANGLES.length];
+  static {
+    for (int i = 0; i < SCAN_ANGLES.length; i++) {
+      SCAN_COS[i] = (float) Math.cos(Math.toRadians(SCAN_ANGLES[i]));
+      SCAN_SIN[i] = (float) Math.sin(Math.toRadians(SCAN_ANGLES[i]));
+    }
+  }
+  // Shortest line worth scanning; fewer pixels can't hold any of the symbologies
+  private static final int MIN_LINE_LENGTH = 32;
+
   @Override
   public Result decode(BinaryBitmap image) throws NotFoundException, FormatException {
     return decode(image, null);
   }
 
-  // Note that we don't try rotation without the try harder flag, even if rotation was supported.
+  // Note that we don't try rotation without the try harder flag. The rotated image is scanned in the
+  // columns of the black matrix, which the 2D readers that run before 1D ones when trying harder have
+  // usually computed already, rather than in a rotated copy of the luminance that would need
+  // binarizing again. So this works whether or not the source supports rotation.
   @Override
   public Result decode(BinaryBitmap image,
                        Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
     try {
-      return doDecode(image, hints);
+      return doDecode(image, null, hints);
     } catch (NotFoundException nfe) {
+      if (hints != null && hints.containsKey(DecodeHintType.TRY_ANGLED)) {
+        try {
+          return doDecodeAngled(image, hints);
+        } catch (NotFoundException ignored) {
+          // continue
+        }
+      }
       boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
-      if (tryHarder && image.isRotateSupported()) {
-        BinaryBitmap rotatedImage = image.rotateCounterClockwise();
-        Result result = doDecode(rotatedImage, hints);
+      if (tryHarder) {
+        DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+        long start = DecodeMetrics.start(metrics);
+        BitMatrix rotatedMatrix;
+        try {
+          rotatedMatrix = image.getBlackMatrix().rotateCounterClockwise();
+        } finally {
+          DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+        }
+        Result result = doDecode(image, rotatedMatrix, hints);
         // Record that we found it rotated 90 degrees CCW / 270 degrees CW
         Map<ResultMetadataType,?> metadata = result.getResultMetadata();
         int orientation = 270;
@@ -69,7 +103,7 @@ public abstract class OneDReader implements Reader {
         // Update result points
         ResultPoint[] points = result.getResultPoints();
         if (points != null) {
-          int height = rotatedImage.getHeight();
+          int height = rotatedMatrix.getHeight();
           for (int i = 0; i < points.length; i++) {
             points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
           }
@@ -96,18 +130,23 @@ public abstract class OneDReader implements Reader {
    * image if "trying harder".
    *
    * @param image The image to decode
+   * @param matrix Rows to scan instead of the black rows of the image, or null
    * @param hints Any hints that were requested
    * @return The contents of the decoded barcode
    * @throws NotFoundException Any spontaneous errors which occur
    */
   private Result doDecode(BinaryBitmap image,
+                          BitMatrix matrix,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
-    int width = image.getWidth();
-    int height = image.getHeight();
+    int width = matrix == null ? image.getWidth() : matrix.getWidth();
+    int height = matrix == null ? image.getHeight() : matrix.getHeight();
     BitArray row = new BitArray(width);
 
     int middle = height >> 1;
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+    DecodeBudget budget = DecodeBudget.fromHints(hints);
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    Consensus consensus = Consensus.fromHints(hints);
     int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
     int maxLines;
     if (tryHarder) {
@@ -117,6 +156,7 @@ public abstract class OneDReader implements Reader {
     }
 
     for (int x = 0; x < maxLines; x++) {
+      DecodeBudget.check(budget);
 
       // Scanning from the middle out. Determine which row we're looking at next:
       int rowStepsAboveOrBelow = (x + 1) / 2;
@@ -128,10 +168,13 @@ public abstract class OneDReader implements Reader {
       }
 
       // Estimate black point for this row and load it:
+      long start = DecodeMetrics.start(metrics);
       try {
-        row = image.getBlackRow(rowNumber, row);
+        row = matrix == null ? image.getBlackRow(rowNumber, row) : matrix.getRow(rowNumber, row);
       } catch (NotFoundException ignored) {
         continue;
+      } finally {
+        DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
       }
 
       // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
@@ -150,6 +193,7 @@ public abstract class OneDReader implements Reader {
             hints = newHints;
           }
         }
+        start = DecodeMetrics.start(metrics);
         try {
           // Look for a barcode
           Result result = decodeRow(rowNumber, row, hints);
@@ -164,16 +208,156 @@ public abstract class OneDReader implements Reader {
               points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
             }
           }
-          return result;
+          if (consensus == null) {
+            return result;
+          }
+          result = consensus.add(result);
+          if (result != null) {
+            return result;
+          }
+          // This row has had its vote; go on to the next one
+          break;
         } catch (ReaderException re) {
           // continue -- just couldn't decode this row
+        } finally {
+          DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ROW_DECODING, start);
+        }
+      }
+    }
+
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  /**
+   * Like {@link #doDecode(BinaryBitmap, BitMatrix, Map)}, but along lines at each of
+   * {@link #SCAN_ANGLES} through the black matrix. Parallel lines are spaced across the image from
+   * its center outwards; those near the center are tried at all angles before those further out.
+   * Each line is sampled one pixel step at a time, so that modules keep their relative widths.
+   */
+  private Result doDecodeAngled(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+    DecodeBudget budget = DecodeBudget.fromHints(hints);
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    BitMatrix matrix;
+    try {
+      matrix = image.getBlackMatrix();
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+    }
+    int width = matrix.getWidth();
+    int height = matrix.getHeight();
+    boolean tryHarder = hints.containsKey(DecodeHintType.TRY_HARDER);
+    Consensus consensus = Consensus.fromHints(hints);
+    if (hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
+      // Points found along the way would be reported along the line, not in the image
+      Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+      newHints.putAll(hints);
+      newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+      hints = newHints;
+    }
+
+    float centerX = width / 2.0f;
+    float centerY = height / 2.0f;
+    int lineStep = Math.max(1, Math.min(width, height) >> (tryHarder ? 6 : 5));
+    int maxLines = tryHarder ? Integer.MAX_VALUE : 15;
+    for (int x = 0; x < maxLines; x++) {
+      int linesAboveOrBelow = (x + 1) / 2;
+      boolean isAbove = (x & 0x01) == 0;
+      int distance = lineStep * (isAbove ? linesAboveOrBelow : -linesAboveOrBelow);
+      boolean anyLine = false;
+      for (int a = 0; a < SCAN_ANGLES.length; a++) {
+        DecodeBudget.check(budget);
+        float cos = SCAN_COS[a];
+        float sin = SCAN_SIN[a];
+        // The line through the point at this distance from the center, perpendicular to it
+        float originX = centerX - distance * sin;
+        float originY = centerY + distance * cos;
+        // Clip it to the image: find the range of t for which origin + t * (cos, sin) is inside
+        float tMin = Math.max(Math.min(-originX / cos, (width - 1 - originX) / cos),
+                              Math.min(-originY / sin, (height - 1 - originY) / sin));
+        float tMax = Math.min(Math.max(-originX / cos, (width - 1 - originX) / cos),
+                              Math.max(-originY / sin, (height - 1 - originY) / sin));
+        if (tMax - tMin < MIN_LINE_LENGTH) {
+          continue;
+        }
+        anyLine = true;
+        int length = (int) (tMax - tMin) + 1;
+        float startX = originX + tMin * cos;
+        float startY = originY + tMin * sin;
+        BitArray row = sampleLine(matrix, startX, startY, cos, sin, length);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+          if (attempt == 1) {
+            row.reverse();
+          }
+          start = DecodeMetrics.start(metrics);
+          try {
+            Result result = decodeRow(0, row, hints);
+            int orientation = attempt == 0 ? SCAN_ANGLES[a] : SCAN_ANGLES[a] + 180;
+            result.putMetadata(ResultMetadataType.ORIENTATION, (orientation + 360) % 360);
+            // Map the points from positions along the line back into the image
+            ResultPoint[] points = result.getResultPoints();
+            if (points != null) {
+              for (int i = 0; i < points.length; i++) {
+                if (points[i] != null) {
+                  float t = attempt == 0 ? points[i].getX() : length - points[i].getX() - 1;
+                  points[i] = new ResultPoint(startX + t * cos, startY + t * sin);
+                }
+              }
+            }
+            if (consensus == null) {
+              return result;
+            }
+            result = consensus.add(result);
+            if (result != null) {
+              return result;
+            }
+            // This line has had its vote; go on to the next one
+            break;
+          } catch (ReaderException re) {
+            // continue -- just couldn't decode this line
+          } finally {
+            DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ROW_DECODING, start);
+          }
         }
       }
+      if (!anyLine && x > 0) {
+        // Run off the image at every angle, and so on the other side too, the image being symmetric
+        break;
+      }
     }
 
     throw NotFoundException.getNotFoundInstance();
   }
 
+  /**
+   * Samples the line at each unit step, where the line lies within the matrix. Each sample is the
+   * majority of the nearest bit and those one step to either side across the line, which are on
+   * the same bar or space of a symbol along it, to smooth out noise from binarization.
+   */
+  private static BitArray sampleLine(BitMatrix matrix, float startX, float startY, float cos, float sin,
+                                     int length) {
+    int maxX = matrix.getWidth() - 1;
+    int maxY = matrix.getHeight() - 1;
+    BitArray row = new BitArray(length);
+    for (int i = 0; i < length; i++) {
+      float x = startX + i * cos;
+      float y = startY + i * sin;
+      int votes = 0;
+      for (int d = -1; d <= 1; d++) {
+        int sampleX = Math.min(maxX, Math.max(0, (int) (x - d * sin + 0.5f)));
+        int sampleY = Math.min(maxY, Math.max(0, (int) (y + d * cos + 0.5f)));
+        if (matrix.get(sampleX, sampleY)) {
+          votes++;
+        }
+      }
+      if (votes >= 2) {
+        row.set(i);
+      }
+    }
+    return row;
+  }
+
   /**
    * Records the size of successive runs of white and black pixels in a row, starting at a given point.
    * The values are recorded in the given array, and the number of runs recorded is equal to the size
@@ -294,4 +478,52 @@ public abstract class OneDReader implements Reader {
   public abstract Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException;
 
+  /**
+   * Counts how many scanlines of one image decoded to each result, for
+   * {@link DecodeHintType#ROW_CONSENSUS}.
+   */
+  private static final class Consensus {
+
+    private final int required;
+    private final Map<String,Result> firstResults = new HashMap<>();
+    private final Map<String,Integer> counts = new HashMap<>();
+
+    private Consensus(int required) {
+      this.required = required;
+    }
+
+    /**
+     * @return a new tally, or null if no consensus of several lines is asked for
+     */
+    static Consensus fromHints(Map<DecodeHintType,?> hints) {
+      if (hints == null) {
+        return null;
+      }
+      Integer required = (Integer) hints.get(DecodeHintType.ROW_CONSENSUS);
+      return required == null || required <= 1 ? null : new Consensus(required);
+    }
+
+    /**
+     * @param result result of one more line
+     * @return the first of the results agreeing with it, once enough lines agree, or null
+     */
+    Result add(Result result) {
+      String key = result.getBarcodeFormat() + ":" + result.getText();
+      Integer count = counts.get(key);
+      count = count == null ? 1 : count + 1;
+      counts.put(key, count);
+      Result first = firstResults.get(key);
+      if (first == null) {
+        first = result;
+        firstResults.put(key, first);
+      }
+      if (count < required) {
+        return null;
+      }
+      first.putMetadata(ResultMetadataType.ROW_AGREEMENT, count);
+      return first;
+    }
+
+  }
+
 }
@@ -40,9 +40,11 @@ import com.google.zxing.core.oned.rss.RSSUtils;
 import com.google.zxing.core.oned.rss.expanded.decoders.AbstractExpandedDecoder;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Collections;
 
 /**
@@ -111,6 +113,8 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   };
 
   private static final int MAX_PAIRS = 11;
+  private static final int MAX_ROWS = 25;
+  private static final long MAX_CHECK_ROWS_NANOS = 20000000L;
 
   private final List<ExpandedPair> pairs = new ArrayList<>(MAX_PAIRS);
   private final List<ExpandedRow> rows = new ArrayList<>();
@@ -184,9 +188,8 @@ public final class RSSExpandedReader extends AbstractRSSReader {
 
   private List<ExpandedPair> checkRows(boolean reverse) {
     // Limit number of rows we are checking
-    // We use recursive algorithm with pure complexity and don't want it to take forever
     // Stacked barcode can have up to 11 rows, so 25 seems reasonable enough
-    if (this.rows.size() > 25) {
+    if (this.rows.size() > MAX_ROWS) {
       this.rows.clear();  // We will never have a chance to get result, so clear it
       return null;
     }
@@ -198,7 +201,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
 
     List<ExpandedPair> ps = null;
     try {
-      ps = checkRows(new ArrayList<ExpandedRow>(), 0);
+      ps = checkRows(0, new HashSet<Long>(), System.nanoTime() + MAX_CHECK_ROWS_NANOS);
     } catch (NotFoundException e) {
       // OK
     }
@@ -210,40 +213,71 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     return ps;
   }
 
-  // Try to construct a valid rows sequence
-  // Recursion is used to implement backtracking
-  private List<ExpandedPair> checkRows(List<ExpandedRow> collectedRows, int currentRow) throws NotFoundException {
+  // Try to construct a valid rows sequence, extending the pairs of the rows chosen so far,
+  // which are in this.pairs. Recursion is used to implement backtracking.
+  // Whether a choice of rows can still be completed depends only on the rows left to try and on
+  // the finder patterns and checksum of the pairs so far, so those are remembered for choices
+  // that were explored without success and not explored again.
+  private List<ExpandedPair> checkRows(int currentRow, Set<Long> exploredStates, long deadline)
+      throws NotFoundException {
+    int size = this.pairs.size();
     for (int i = currentRow; i < rows.size(); i++) {
-      ExpandedRow row = rows.get(i);
-      this.pairs.clear();
-      int size = collectedRows.size();
-      for (int j = 0; j < size; j++) {
-        this.pairs.addAll(collectedRows.get(j).getPairs());
-      }
-      this.pairs.addAll(row.getPairs());
-
-      if (!isValidSequence(this.pairs)) {
-        continue;
+      if (System.nanoTime() > deadline) {
+        throw NotFoundException.getNotFoundInstance();
       }
+      this.pairs.addAll(rows.get(i).getPairs());
 
-      if (checkChecksum()) {
-        return this.pairs;
+      if (isValidSequence(this.pairs)) {
+        if (checkChecksum()) {
+          return this.pairs;
+        }
+        if (exploredStates.add(searchState(i + 1))) {
+          try {
+            // Recursion: try to add more rows
+            return checkRows(i + 1, exploredStates, deadline);
+          } catch (NotFoundException e) {
+            // We failed, try the next candidate
+          }
+        }
       }
 
-      List<ExpandedRow> rs = new ArrayList<>();
-      rs.addAll(collectedRows);
-      rs.add(row);
-      try {
-        // Recursion: try to add more rows
-        return checkRows(rs, i + 1);
-      } catch (NotFoundException e) {
-        // We failed, try the next candidate
-      }
+      this.pairs.subList(size, this.pairs.size()).clear();
     }
 
     throw NotFoundException.getNotFoundInstance();
   }
 
+  // Packs what decides the outcome of checkRows(nextRow, ...) into a long: the next row, the
+  // finder pattern sequence so far (at most 11 values in [0,6)), the checksum so far and the
+  // check character value.
+  private long searchState(int nextRow) {
+    long state = nextRow;
+    for (ExpandedPair pair : this.pairs) {
+      state = state * 7 + pair.getFinderPattern().getValue() + 1;
+    }
+    ExpandedPair firstPair = this.pairs.get(0);
+    int checksum = 0;
+    int s = 0;
+    if (firstPair.getRightChar() != null) {
+      checksum = firstPair.getRightChar().getChecksumPortion();
+      s = 2;
+      for (int i = 1; i < this.pairs.size(); i++) {
+        ExpandedPair currentPair = this.pairs.get(i);
+        checksum += currentPair.getLeftChar().getChecksumPortion();
+        s++;
+        DataCharacter currentRightChar = currentPair.getRightChar();
+        if (currentRightChar != null) {
+          checksum += currentRightChar.getChecksumPortion();
+          s++;
+        }
+      }
+      checksum %= 211;
+    }
+    state = (state * 211 + checksum) * 32 + s;
+    // No check character value above 211 * (22 - 4) + 210 can match, so those may share one key
+    return (state << 12) | Math.min(firstPair.getLeftChar().getValue(), 0xFFF);
+  }
+
   // Whether the pairs form a valid find pattern seqience,
   // either complete or a prefix
   private static boolean isValidSequence(List<ExpandedPair> pairs) {
@@ -20,6 +20,7 @@ import com.google.zxing.core.BarcodeFormat;
 import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.ChecksumException;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -82,10 +83,23 @@ public final class PDF417Reader implements Reader, MultipleBarcodeReader {
   private static Result[] decode(BinaryBitmap image, Map<DecodeHintType, ?> hints, boolean multiple) 
       throws NotFoundException, FormatException, ChecksumException {
     List<Result> results = new ArrayList<>();
-    PDF417DetectorResult detectorResult = Detector.detect(image, hints, multiple);
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    try {
+      image.getBlackMatrix();
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+    }
+    start = DecodeMetrics.start(metrics);
+    PDF417DetectorResult detectorResult;
+    try {
+      detectorResult = Detector.detect(image, hints, multiple);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.DETECTION, start);
+    }
     for (ResultPoint[] points : detectorResult.getPoints()) {
       DecoderResult decoderResult = PDF417ScanningDecoder.decode(detectorResult.getBits(), points[4], points[5],
-          points[6], points[7], getMinCodewordWidth(points), getMaxCodewordWidth(points));
+          points[6], points[7], getMinCodewordWidth(points), getMaxCodewordWidth(points), hints);
       Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points, BarcodeFormat.PDF_417);
       result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, decoderResult.getECLevel());
       PDF417ResultMetadata pdf417ResultMetadata = (PDF417ResultMetadata) decoderResult.getOther();
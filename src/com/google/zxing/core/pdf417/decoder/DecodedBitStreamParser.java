@@ -101,9 +101,9 @@ final class DecodedBitStreamParser {
     Charset encoding = DEFAULT_ENCODING;
     // Get compaction mode
     int codeIndex = 1;
-    int code = codewords[codeIndex++];
     PDF417ResultMetadata resultMetadata = new PDF417ResultMetadata();
     while (codeIndex < codewords[0]) {
+      int code = codewords[codeIndex++];
       switch (code) {
         case TEXT_COMPACTION_MODE_LATCH:
           codeIndex = textCompaction(codewords, codeIndex, result);
@@ -146,11 +146,6 @@ final class DecodedBitStreamParser {
           codeIndex = textCompaction(codewords, codeIndex, result);
           break;
       }
-      if (codeIndex < codewords.length) {
-        code = codewords[codeIndex++];
-      } else {
-        throw FormatException.getFormatInstance();
-      }
     }
     if (result.length() == 0) {
       throw FormatException.getFormatInstance();
@@ -17,6 +17,9 @@
 package com.google.zxing.core.pdf417.decoder;
 
 import com.google.zxing.core.ChecksumException;
+import com.google.zxing.core.DecodeBudget;
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.ResultPoint;
@@ -29,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Guenther Grau
@@ -55,6 +59,44 @@ public final class PDF417ScanningDecoder {
                                      ResultPoint imageBottomRight,
                                      int minCodewordWidth,
                                      int maxCodewordWidth) throws NotFoundException, FormatException, ChecksumException {
+    return decode(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight, minCodewordWidth,
+        maxCodewordWidth, null);
+  }
+
+  /**
+   * As {@link #decode(BitMatrix, ResultPoint, ResultPoint, ResultPoint, ResultPoint, int, int)}, but
+   * honoring the {@link DecodeHintType#DECODE_BUDGET} and {@link DecodeHintType#DECODE_METRICS} hints.
+   */
+  public static DecoderResult decode(BitMatrix image,
+                                     ResultPoint imageTopLeft,
+                                     ResultPoint imageBottomLeft,
+                                     ResultPoint imageTopRight,
+                                     ResultPoint imageBottomRight,
+                                     int minCodewordWidth,
+                                     int maxCodewordWidth,
+                                     Map<DecodeHintType,?> hints) throws NotFoundException, FormatException,
+      ChecksumException {
+    DecodeBudget budget = DecodeBudget.fromHints(hints);
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    DetectionResult detectionResult;
+    try {
+      detectionResult = scanCodewords(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight,
+          minCodewordWidth, maxCodewordWidth, budget);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.SAMPLING, start);
+    }
+    return createDecoderResult(detectionResult, metrics);
+  }
+
+  private static DetectionResult scanCodewords(BitMatrix image,
+                                               ResultPoint imageTopLeft,
+                                               ResultPoint imageBottomLeft,
+                                               ResultPoint imageTopRight,
+                                               ResultPoint imageBottomRight,
+                                               int minCodewordWidth,
+                                               int maxCodewordWidth,
+                                               DecodeBudget budget) throws NotFoundException, FormatException {
     BoundingBox boundingBox = new BoundingBox(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight);
     DetectionResultRowIndicatorColumn leftRowIndicatorColumn = null;
     DetectionResultRowIndicatorColumn rightRowIndicatorColumn = null;
@@ -87,6 +129,7 @@ public final class PDF417ScanningDecoder {
 
     boolean leftToRight = leftRowIndicatorColumn != null;
     for (int barcodeColumnCount = 1; barcodeColumnCount <= maxBarcodeColumn; barcodeColumnCount++) {
+      DecodeBudget.check(budget);
       int barcodeColumn = leftToRight ? barcodeColumnCount : maxBarcodeColumn - barcodeColumnCount;
       if (detectionResult.getDetectionResultColumn(barcodeColumn) != null) {
         // This will be the case for the opposite row indicator column, which doesn't need to be decoded again.
@@ -120,7 +163,7 @@ public final class PDF417ScanningDecoder {
         }
       }
     }
-    return createDecoderResult(detectionResult);
+    return detectionResult;
   }
 
   private static DetectionResult merge(DetectionResultRowIndicatorColumn leftRowIndicatorColumn,
@@ -247,8 +290,8 @@ public final class PDF417ScanningDecoder {
     }
   }
 
-  private static DecoderResult createDecoderResult(DetectionResult detectionResult) throws FormatException,
-      ChecksumException, NotFoundException {
+  private static DecoderResult createDecoderResult(DetectionResult detectionResult, DecodeMetrics metrics)
+      throws FormatException, ChecksumException, NotFoundException {
     BarcodeValue[][] barcodeMatrix = createBarcodeMatrix(detectionResult);
     adjustCodewordCount(detectionResult, barcodeMatrix);
     Collection<Integer> erasures = new ArrayList<>();
@@ -274,7 +317,8 @@ public final class PDF417ScanningDecoder {
       ambiguousIndexValues[i] = ambiguousIndexValuesList.get(i);
     }
     return createDecoderResultFromAmbiguousValues(detectionResult.getBarcodeECLevel(), codewords,
-        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues);
+        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues,
+        metrics);
   }
 
   /**
@@ -294,7 +338,8 @@ public final class PDF417ScanningDecoder {
                                                                       int[] codewords,
                                                                       int[] erasureArray,
                                                                       int[] ambiguousIndexes,
-                                                                      int[][] ambiguousIndexValues)
+                                                                      int[][] ambiguousIndexValues,
+                                                                      DecodeMetrics metrics)
       throws FormatException, ChecksumException {
     int[] ambiguousIndexCount = new int[ambiguousIndexes.length];
 
@@ -304,7 +349,7 @@ public final class PDF417ScanningDecoder {
         codewords[ambiguousIndexes[i]] = ambiguousIndexValues[i][ambiguousIndexCount[i]];
       }
       try {
-        return decodeCodewords(codewords, ecLevel, erasureArray);
+        return decodeCodewords(codewords, ecLevel, erasureArray, metrics);
       } catch (ChecksumException ignored) {
         //
       }
@@ -517,18 +562,33 @@ public final class PDF417ScanningDecoder {
         codewordSize <= maxCodewordWidth + CODEWORD_SKEW_SIZE;
   }
 
-  private static DecoderResult decodeCodewords(int[] codewords, int ecLevel, int[] erasures) throws FormatException,
-      ChecksumException {
+  private static DecoderResult decodeCodewords(int[] codewords,
+                                               int ecLevel,
+                                               int[] erasures,
+                                               DecodeMetrics metrics) throws FormatException, ChecksumException {
     if (codewords.length == 0) {
       throw FormatException.getFormatInstance();
     }
 
     int numECCodewords = 1 << (ecLevel + 1);
-    int correctedErrorsCount = correctErrors(codewords, erasures, numECCodewords);
+    long start = DecodeMetrics.start(metrics);
+    int correctedErrorsCount;
+    try {
+      correctedErrorsCount = correctErrors(codewords, erasures, numECCodewords);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ERROR_CORRECTION, start);
+    }
+    DecodeMetrics.count(metrics, DecodeMetrics.Counter.ERRORS_CORRECTED, correctedErrorsCount);
     verifyCodewordCount(codewords, numECCodewords);
 
     // Decode the codewords
-    DecoderResult decoderResult = DecodedBitStreamParser.decode(codewords, String.valueOf(ecLevel));
+    start = DecodeMetrics.start(metrics);
+    DecoderResult decoderResult;
+    try {
+      decoderResult = DecodedBitStreamParser.decode(codewords, String.valueOf(ecLevel));
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BITSTREAM_PARSING, start);
+    }
     decoderResult.setErrorsCorrected(correctedErrorsCount);
     decoderResult.setErasures(erasures.length);
     return decoderResult;
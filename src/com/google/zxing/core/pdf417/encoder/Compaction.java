@@ -21,6 +21,10 @@ public enum Compaction {
   AUTO,
   TEXT,
   BYTE,
-  NUMERIC
+  NUMERIC,
+  /**
+   * Switches between text, byte and numeric compaction wherever that gives the fewest codewords
+   */
+  MINIMAL
 
 }
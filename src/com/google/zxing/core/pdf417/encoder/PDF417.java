@@ -21,6 +21,8 @@
 package com.google.zxing.core.pdf417.encoder;
 
 import com.google.zxing.core.WriterException;
+import com.google.zxing.core.common.BitArray;
+import com.google.zxing.core.common.BitMatrix;
 
 import java.nio.charset.Charset;
 
@@ -513,6 +515,10 @@ public final class PDF417 {
   private static final float HEIGHT = 2.0f; //mm
 
   private BarcodeMatrix barcodeMatrix;
+  private String fullCodewords;
+  private int rows;
+  private int cols;
+  private int errorCorrectionLevel;
   private boolean compact;
   private Compaction compaction;
   private Charset encoding;
@@ -536,9 +542,27 @@ public final class PDF417 {
   }
 
   public BarcodeMatrix getBarcodeMatrix() {
+    if (barcodeMatrix == null && fullCodewords != null) {
+      barcodeMatrix = new BarcodeMatrix(rows, cols);
+      encodeLowLevel(fullCodewords, cols, rows, errorCorrectionLevel, barcodeMatrix);
+    }
     return barcodeMatrix;
   }
 
+  /**
+   * @return width in modules of the symbol generated last, including start and stop patterns
+   */
+  public int getSymbolWidth() {
+    return (cols + 4) * 17 + 1;
+  }
+
+  /**
+   * @return number of rows of the symbol generated last
+   */
+  public int getSymbolRows() {
+    return rows;
+  }
+
   /**
    * Calculates the necessary number of rows as described in annex Q of ISO/IEC 15438:2001(E).
    *
@@ -592,6 +616,28 @@ public final class PDF417 {
     logic.addBar(last, width);
   }
 
+  private static int getLeftRowIndicator(int y, int c, int r, int errorCorrectionLevel) {
+    switch (y % 3) {
+      case 0:
+        return (30 * (y / 3)) + ((r - 1) / 3);
+      case 1:
+        return (30 * (y / 3)) + (errorCorrectionLevel * 3) + ((r - 1) % 3);
+      default:
+        return (30 * (y / 3)) + (c - 1);
+    }
+  }
+
+  private static int getRightRowIndicator(int y, int c, int r, int errorCorrectionLevel) {
+    switch (y % 3) {
+      case 0:
+        return (30 * (y / 3)) + (c - 1);
+      case 1:
+        return (30 * (y / 3)) + ((r - 1) / 3);
+      default:
+        return (30 * (y / 3)) + (errorCorrectionLevel * 3) + ((r - 1) % 3);
+    }
+  }
+
   private void encodeLowLevel(CharSequence fullCodewords,
                               int c,
                               int r,
@@ -604,18 +650,8 @@ public final class PDF417 {
       logic.startRow();
       encodeChar(START_PATTERN, 17, logic.getCurrentRow());
 
-      int left;
-      int right;
-      if (cluster == 0) {
-        left = (30 * (y / 3)) + ((r - 1) / 3);
-        right = (30 * (y / 3)) + (c - 1);
-      } else if (cluster == 1) {
-        left = (30 * (y / 3)) + (errorCorrectionLevel * 3) + ((r - 1) % 3);
-        right = (30 * (y / 3)) + ((r - 1) / 3);
-      } else {
-        left = (30 * (y / 3)) + (c - 1);
-        right = (30 * (y / 3)) + (errorCorrectionLevel * 3) + ((r - 1) % 3);
-      }
+      int left = getLeftRowIndicator(y, c, r, errorCorrectionLevel);
+      int right = getRightRowIndicator(y, c, r, errorCorrectionLevel);
 
       int pattern = CODEWORD_TABLE[cluster][left];
       encodeChar(pattern, 17, logic.getCurrentRow());
@@ -674,9 +710,86 @@ public final class PDF417 {
     String ec = PDF417ErrorCorrection.generateErrorCorrection(dataCodewords, errorCorrectionLevel);
     String fullCodewords = dataCodewords + ec;
 
-    //4. step: low-level encoding
-    barcodeMatrix = new BarcodeMatrix(rows, cols);
-    encodeLowLevel(fullCodewords, cols, rows, errorCorrectionLevel, barcodeMatrix);
+    //4. step: low-level encoding, left to getBarcodeMatrix() or render()
+    this.fullCodewords = fullCodewords;
+    this.rows = rows;
+    this.cols = cols;
+    this.errorCorrectionLevel = errorCorrectionLevel;
+    barcodeMatrix = null;
+  }
+
+  /**
+   * Renders the symbol generated last straight into a {@link BitMatrix}, one packed row of bits
+   * per symbol row, without building the {@link BarcodeMatrix} and its scaled copies.
+   *
+   * @param xScale width of a module in pixels
+   * @param yScale height of a row in pixels
+   * @param margin white space around the symbol in pixels
+   * @param rotated if true, the symbol is turned 90 degrees counterclockwise, its rows running
+   *  from left to right with the start patterns at the bottom
+   * @return the rendered symbol
+   */
+  public BitMatrix render(int xScale, int yScale, int margin, boolean rotated) {
+    int width = getSymbolWidth() * xScale;
+    int height = rows * yScale;
+    BitMatrix output = rotated ?
+        new BitMatrix(height + 2 * margin, width + 2 * margin) :
+        new BitMatrix(width + 2 * margin, height + 2 * margin);
+    BitArray row = new BitArray(width + 2 * margin);
+    int idx = 0;
+    for (int y = 0; y < rows; y++) {
+      int cluster = y % 3;
+      row.clear();
+      int x = margin;
+      x = renderPattern(START_PATTERN, 17, x, xScale, row);
+      x = renderPattern(CODEWORD_TABLE[cluster][getLeftRowIndicator(y, cols, rows, errorCorrectionLevel)],
+          17, x, xScale, row);
+      for (int i = 0; i < cols; i++) {
+        x = renderPattern(CODEWORD_TABLE[cluster][fullCodewords.charAt(idx)], 17, x, xScale, row);
+        idx++;
+      }
+      if (compact) {
+        renderPattern(STOP_PATTERN, 1, x, xScale, row);
+      } else {
+        x = renderPattern(CODEWORD_TABLE[cluster][getRightRowIndicator(y, cols, rows, errorCorrectionLevel)],
+            17, x, xScale, row);
+        renderPattern(STOP_PATTERN, 18, x, xScale, row);
+      }
+
+      int offset = margin + y * yScale;
+      if (!rotated) {
+        for (int i = 0; i < yScale; i++) {
+          output.setRow(offset + i, row);
+        }
+      } else {
+        // Pixel x of the row goes to height - 1 - x, so bars become vertical runs
+        int end = margin;
+        while (end < margin + width) {
+          int start = row.getNextSet(end);
+          if (start >= margin + width) {
+            break;
+          }
+          end = row.getNextUnset(start);
+          output.setRegion(offset, 2 * margin + width - end, yScale, end - start);
+        }
+      }
+    }
+    return output;
+  }
+
+  /**
+   * Sets the dark modules of a pattern, most significant bit first, in a row of pixels.
+   *
+   * @return the position following the pattern
+   */
+  private static int renderPattern(int pattern, int len, int x, int xScale, BitArray row) {
+    for (int map = 1 << (len - 1); map != 0; map >>>= 1) {
+      if ((pattern & map) != 0) {
+        row.setRange(x, x + xScale);
+      }
+      x += xScale;
+    }
+    return x;
   }
 
   /**
@@ -124,6 +124,23 @@ final class PDF417ErrorCorrection {
           223, 849, 647, 63, 310, 863, 251, 366, 304, 282, 738, 675,
           410, 389, 244, 31, 121, 303, 263}};
 
+  /**
+   * The coefficients above subtracted from 929, per level, so that the remainder is updated by
+   * additions only
+   */
+  private static final int[][] NEGATED_EC_COEFFICIENTS = new int[EC_COEFFICIENTS.length][];
+
+  static {
+    for (int level = 0; level < EC_COEFFICIENTS.length; level++) {
+      int[] coefficients = EC_COEFFICIENTS[level];
+      int[] negated = new int[coefficients.length];
+      for (int i = 0; i < coefficients.length; i++) {
+        negated[i] = (929 - coefficients[i]) % 929;
+      }
+      NEGATED_EC_COEFFICIENTS[level] = negated;
+    }
+  }
+
   private PDF417ErrorCorrection() {
   }
 
@@ -176,29 +193,22 @@ final class PDF417ErrorCorrection {
    */
   static String generateErrorCorrection(CharSequence dataCodewords, int errorCorrectionLevel) {
     int k = getErrorCorrectionCodewordCount(errorCorrectionLevel);
-    char[] e = new char[k];
+    int[] negatedCoefficients = NEGATED_EC_COEFFICIENTS[errorCorrectionLevel];
+    int[] e = new int[k];
     int sld = dataCodewords.length();
     for (int i = 0; i < sld; i++) {
-      int t1 = (dataCodewords.charAt(i) + e[e.length - 1]) % 929;
-      int t2;
-      int t3;
+      int t1 = (dataCodewords.charAt(i) + e[k - 1]) % 929;
+      // e[j] - t1 * c[j] mod 929, with a single reduction
       for (int j = k - 1; j >= 1; j--) {
-        t2 = (t1 * EC_COEFFICIENTS[errorCorrectionLevel][j]) % 929;
-        t3 = 929 - t2;
-        e[j] = (char) ((e[j - 1] + t3) % 929);
+        e[j] = (e[j - 1] + t1 * negatedCoefficients[j]) % 929;
       }
-      t2 = (t1 * EC_COEFFICIENTS[errorCorrectionLevel][0]) % 929;
-      t3 = 929 - t2;
-      e[0] = (char) (t3 % 929);
+      e[0] = (t1 * negatedCoefficients[0]) % 929;
     }
-    StringBuilder sb = new StringBuilder(k);
+    char[] ec = new char[k];
     for (int j = k - 1; j >= 0; j--) {
-      if (e[j] != 0) {
-        e[j] = (char) (929 - e[j]);
-      }
-      sb.append(e[j]);
+      ec[k - 1 - j] = (char) (e[j] == 0 ? 0 : 929 - e[j]);
     }
-    return sb.toString();
+    return new String(ec);
   }
 
 }
@@ -128,6 +128,30 @@ final class PDF417HighLevelEncoder {
 
   private static final Charset DEFAULT_ENCODING = Charset.forName("ISO-8859-1");
 
+  /**
+   * Text values needed to latch from one text compaction submode (row) to another (column)
+   */
+  private static final String[][] TEXT_LATCHES = {
+      {"", "\u001b", "\u001c", "\u001c\u0019"},         // from Alpha: ll, ml, ml pl
+      {"\u001c\u001c", "", "\u001c", "\u001c\u0019"},   // from Lower: ml al, ml, ml pl
+      {"\u001c", "\u001b", "", "\u0019"},               // from Mixed: al, ll, pl
+      {"\u001d", "\u001d\u001b", "\u001d\u001c", ""}};  // from Punctuation: al, al ll, al ml
+
+  // States of the minimal encoding: the text compaction submodes, the bytes modulo 6 of byte
+  // compaction and the digits modulo 44 of numeric compaction
+  private static final int STATE_TEXT = 0;
+  private static final int STATE_BYTE = 4;
+  private static final int STATE_NUMERIC = 10;
+  private static final int STATE_COUNT = 54;
+
+  private static final int MAX_NUMERIC_GROUP_DIGITS = 44;
+  private static final int UNREACHED = Integer.MAX_VALUE / 2;
+
+  /**
+   * Codewords taken by a numeric compaction group of as many digits as the index
+   */
+  private static final int[] NUMERIC_GROUP_CODEWORDS = new int[MAX_NUMERIC_GROUP_DIGITS + 1];
+
   private PDF417HighLevelEncoder() {
   }
 
@@ -147,6 +171,17 @@ final class PDF417HighLevelEncoder {
         PUNCTUATION[b] = i;
       }
     }
+    BigInteger num900 = BigInteger.valueOf(900);
+    for (int digits = 1; digits <= MAX_NUMERIC_GROUP_DIGITS; digits++) {
+      // The group is prefixed with '1', so 10^digits has as many base 900 digits as any group
+      BigInteger bigint = BigInteger.TEN.pow(digits);
+      int count = 0;
+      while (bigint.signum() > 0) {
+        bigint = bigint.divide(num900);
+        count++;
+      }
+      NUMERIC_GROUP_CODEWORDS[digits] = count;
+    }
   }
 
   /**
@@ -190,6 +225,9 @@ final class PDF417HighLevelEncoder {
       sb.append((char) LATCH_TO_NUMERIC);
       encodeNumeric(msg, p, len, sb);
 
+    } else if (compaction == Compaction.MINIMAL) {
+      encodeMinimal(msg, encoding, sb);
+
     } else {
       int encodingMode = TEXT_COMPACTION; //Default mode, see 4.4.2.1
       while (p < len) {
@@ -234,6 +272,222 @@ final class PDF417HighLevelEncoder {
     return sb.toString();
   }
 
+  /**
+   * Encodes the message switching between compaction modes where that gives the fewest codewords.
+   * This is a shortest path search over the message positions, in which the state is the text
+   * compaction submode, or the position within the current group of byte or numeric compaction.
+   * Costs count text values, two of which make a codeword, so text may end in the middle of one.
+   *
+   * @param msg      the message
+   * @param encoding the charset used to convert characters to bytes for byte compaction
+   * @param sb       receives the encoded codewords
+   */
+  private static void encodeMinimal(String msg, Charset encoding, StringBuilder sb) throws WriterException {
+    int len = msg.length();
+    int[] costs = new int[(len + 1) * STATE_COUNT];
+    Arrays.fill(costs, UNREACHED);
+    // Previous state, shifted left by two, plus how the character was encoded: 0 for none,
+    // 1 in the mode or submode, 2 shifted to another submode, 3 shifted to byte compaction
+    int[] previous = new int[costs.length];
+    CharsetEncoder encoder = encoding.newEncoder();
+
+    costs[STATE_TEXT + SUBMODE_ALPHA] = 0;
+    for (int i = 0; i <= len; i++) {
+      int at = i * STATE_COUNT;
+      int text = bestState(costs, at, STATE_TEXT, STATE_BYTE);
+      int bytes = bestState(costs, at, STATE_BYTE, STATE_NUMERIC);
+      int numeric = bestState(costs, at, STATE_NUMERIC, STATE_COUNT);
+      int textCost = toCodewordBoundary(costs[at + text]);
+      int byteCost = costs[at + bytes];
+      int numericCost = costs[at + numeric];
+      relax(costs, previous, at + STATE_TEXT + SUBMODE_ALPHA, byteCost + 2, bytes, 0);
+      relax(costs, previous, at + STATE_TEXT + SUBMODE_ALPHA, numericCost + 2, numeric, 0);
+      relax(costs, previous, at + STATE_BYTE, textCost + 2, text, 0);
+      relax(costs, previous, at + STATE_BYTE, numericCost + 2, numeric, 0);
+      relax(costs, previous, at + STATE_NUMERIC, textCost + 2, text, 0);
+      relax(costs, previous, at + STATE_NUMERIC, byteCost + 2, bytes, 0);
+      for (int to = SUBMODE_ALPHA; to <= SUBMODE_PUNCTUATION; to++) {
+        for (int from = SUBMODE_ALPHA; from <= SUBMODE_PUNCTUATION; from++) {
+          relax(costs, previous, at + STATE_TEXT + to,
+              costs[at + STATE_TEXT + from] + TEXT_LATCHES[from][to].length(), STATE_TEXT + from, 0);
+        }
+      }
+      if (i == len) {
+        break;
+      }
+
+      char ch = msg.charAt(i);
+      int next = at + STATE_COUNT;
+      int byteCount = encoder.canEncode(ch) ? String.valueOf(ch).getBytes(encoding).length : 0;
+      if (byteCount == 0 && !isText(ch)) {
+        throw new WriterException("Non-encodable character detected: " + ch + " (Unicode: " + (int) ch + ')');
+      }
+      for (int submode = SUBMODE_ALPHA; submode <= SUBMODE_PUNCTUATION; submode++) {
+        int cost = costs[at + STATE_TEXT + submode];
+        if (getTextValue(ch, submode) >= 0) {
+          relax(costs, previous, next + STATE_TEXT + submode, cost + 1, STATE_TEXT + submode, 1);
+        } else if ((submode == SUBMODE_LOWER && isAlphaUpper(ch))
+            || (submode != SUBMODE_PUNCTUATION && ch < 128 && isPunctuation(ch))) {
+          relax(costs, previous, next + STATE_TEXT + submode, cost + 2, STATE_TEXT + submode, 2);
+        }
+        if (byteCount == 1) {
+          // A padding value in the punctuation submode latches to alpha
+          int after = submode == SUBMODE_PUNCTUATION && (cost & 1) != 0 ? SUBMODE_ALPHA : submode;
+          relax(costs, previous, next + STATE_TEXT + after, toCodewordBoundary(cost) + 4, STATE_TEXT + submode, 3);
+        }
+      }
+      if (byteCount > 0) {
+        for (int count = 0; count < 6; count++) {
+          int total = count + byteCount;
+          relax(costs, previous, next + STATE_BYTE + total % 6,
+              costs[at + STATE_BYTE + count] + 2 * (total / 6 * 5 + total % 6 - count), STATE_BYTE + count, 1);
+        }
+      }
+      if (isDigit(ch)) {
+        for (int count = 0; count < MAX_NUMERIC_GROUP_DIGITS; count++) {
+          int increase = NUMERIC_GROUP_CODEWORDS[count + 1] - NUMERIC_GROUP_CODEWORDS[count];
+          relax(costs, previous, next + STATE_NUMERIC + (count + 1) % MAX_NUMERIC_GROUP_DIGITS,
+              costs[at + STATE_NUMERIC + count] + 2 * increase, STATE_NUMERIC + count, 1);
+        }
+      }
+    }
+
+    int last = bestState(costs, len * STATE_COUNT, 0, STATE_COUNT);
+    int[] path = new int[costs.length];
+    int count = 0;
+    int node = len * STATE_COUNT + last;
+    path[count++] = node;
+    while (node != STATE_TEXT + SUBMODE_ALPHA) {
+      int position = node / STATE_COUNT - ((previous[node] & 3) == 0 ? 0 : 1);
+      node = position * STATE_COUNT + (previous[node] >> 2);
+      path[count++] = node;
+    }
+
+    StringBuilder textValues = new StringBuilder();
+    int segmentStart = 0;
+    for (int k = count - 1; k > 0; k--) {
+      int i = path[k] / STATE_COUNT;
+      int from = path[k] % STATE_COUNT;
+      int to = path[k - 1] % STATE_COUNT;
+      int action = previous[path[k - 1]] & 3;
+      if (action == 0) {
+        if (from < STATE_BYTE && to < STATE_BYTE) {
+          textValues.append(TEXT_LATCHES[from][to]);
+          continue;
+        }
+        endSegment(msg, from, segmentStart, i, encoding, textValues, sb);
+        if (to < STATE_BYTE) {
+          sb.append((char) LATCH_TO_TEXT);
+        } else if (to >= STATE_NUMERIC) {
+          sb.append((char) LATCH_TO_NUMERIC);
+        }
+        segmentStart = i;
+        continue;
+      }
+      char ch = msg.charAt(i);
+      if (from >= STATE_BYTE) {
+        continue;
+      }
+      if (action == 1) {
+        textValues.append((char) getTextValue(ch, from));
+      } else if (action == 2) {
+        if (isAlphaUpper(ch)) {
+          textValues.append((char) 27); //as
+          textValues.append((char) (ch - 65));
+        } else {
+          textValues.append((char) 29); //ps
+          textValues.append((char) PUNCTUATION[ch]);
+        }
+      } else {
+        appendTextValues(textValues, sb);
+        byte[] bytes = String.valueOf(ch).getBytes(encoding);
+        encodeBinary(bytes, 0, 1, TEXT_COMPACTION, sb);
+      }
+    }
+    endSegment(msg, last, segmentStart, len, encoding, textValues, sb);
+  }
+
+  /**
+   * @return the state in {@code [from, to)} with the lowest cost, counting text to a whole codeword
+   */
+  private static int bestState(int[] costs, int at, int from, int to) {
+    int best = from;
+    for (int state = from + 1; state < to; state++) {
+      if (toCodewordBoundary(costs[at + state]) < toCodewordBoundary(costs[at + best])) {
+        best = state;
+      }
+    }
+    return best;
+  }
+
+  private static void relax(int[] costs, int[] previous, int index, int cost, int fromState, int action) {
+    if (cost < costs[index]) {
+      costs[index] = cost;
+      previous[index] = fromState << 2 | action;
+    }
+  }
+
+  /**
+   * @return the cost rounded up to whole codewords, as a padding value completes the last one
+   */
+  private static int toCodewordBoundary(int cost) {
+    return cost + (cost & 1);
+  }
+
+  /**
+   * @return the value of the character in the text compaction submode, or -1 if it has none
+   */
+  private static int getTextValue(char ch, int submode) {
+    switch (submode) {
+      case SUBMODE_ALPHA:
+        if (ch == ' ') {
+          return 26;
+        }
+        return ch >= 'A' && ch <= 'Z' ? ch - 65 : -1;
+      case SUBMODE_LOWER:
+        if (ch == ' ') {
+          return 26;
+        }
+        return ch >= 'a' && ch <= 'z' ? ch - 97 : -1;
+      case SUBMODE_MIXED:
+        return ch < 128 ? MIXED[ch] : -1;
+      default:
+        return ch < 128 ? PUNCTUATION[ch] : -1;
+    }
+  }
+
+  /**
+   * Writes the codewords of a segment of the minimal encoding ending in the given state.
+   */
+  private static void endSegment(String msg,
+                                 int state,
+                                 int start,
+                                 int end,
+                                 Charset encoding,
+                                 StringBuilder textValues,
+                                 StringBuilder sb) {
+    if (state < STATE_BYTE) {
+      appendTextValues(textValues, sb);
+    } else if (state < STATE_NUMERIC) {
+      byte[] bytes = msg.substring(start, end).getBytes(encoding);
+      encodeBinary(bytes, 0, bytes.length, BYTE_COMPACTION, sb);
+    } else {
+      encodeNumeric(msg, start, end - start, sb);
+    }
+  }
+
+  /**
+   * Writes text values two per codeword, completing the last codeword with a padding value.
+   */
+  private static void appendTextValues(StringBuilder textValues, StringBuilder sb) {
+    int len = textValues.length();
+    for (int i = 0; i < len; i += 2) {
+      char second = i + 1 < len ? textValues.charAt(i + 1) : 29; //ps
+      sb.append((char) (textValues.charAt(i) * 30 + second));
+    }
+    textValues.setLength(0);
+  }
+
   /**
    * Encode parts of the message using Text Compaction as described in ISO/IEC 15438:2001(E),
    * chapter 4.4.2.
@@ -20,6 +20,7 @@ import com.google.zxing.core.BarcodeFormat;
 import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.ChecksumException;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.Reader;
@@ -67,14 +68,28 @@ public class QRCodeReader implements Reader {
   @Override
   public final Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    BitMatrix matrix;
+    try {
+      matrix = image.getBlackMatrix();
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BINARIZATION, start);
+    }
     DecoderResult decoderResult;
     ResultPoint[] points;
     if (hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE)) {
-      BitMatrix bits = extractPureBits(image.getBlackMatrix());
+      BitMatrix bits = extractPureBits(matrix);
       decoderResult = decoder.decode(bits, hints);
       points = NO_POINTS;
     } else {
-      DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect(hints);
+      start = DecodeMetrics.start(metrics);
+      DetectorResult detectorResult;
+      try {
+        detectorResult = new Detector(matrix).detect(hints);
+      } finally {
+        DecodeMetrics.stop(metrics, DecodeMetrics.Stage.DETECTION, start);
+      }
       decoderResult = decoder.decode(detectorResult.getBits(), hints);
       points = detectorResult.getPoints();
     }
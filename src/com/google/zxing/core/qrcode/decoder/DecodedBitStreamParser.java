@@ -225,19 +225,17 @@ final class DecodedBitStreamParser {
     for (int i = 0; i < count; i++) {
       readBytes[i] = (byte) bits.readBits(8);
     }
-    String encoding;
-    if (currentCharacterSetECI == null) {
-      // The spec isn't clear on this mode; see
-      // section 6.4.5: t does not say which encoding to assuming
-      // upon decoding. I have seen ISO-8859-1 used as well as
-      // Shift_JIS -- without anything like an ECI designator to
-      // give a hint.
-      encoding = StringUtils.guessEncoding(readBytes, hints);
-    } else {
-      encoding = currentCharacterSetECI.name();
-    }
     try {
-      result.append(new String(readBytes, encoding));
+      if (currentCharacterSetECI == null) {
+        // The spec isn't clear on this mode; see
+        // section 6.4.5: t does not say which encoding to assuming
+        // upon decoding. I have seen ISO-8859-1 used as well as
+        // Shift_JIS -- without anything like an ECI designator to
+        // give a hint.
+        StringUtils.appendDecoded(readBytes, hints, result);
+      } else {
+        result.append(new String(readBytes, currentCharacterSetECI.name()));
+      }
     } catch (UnsupportedEncodingException ignored) {
       throw FormatException.getFormatInstance();
     }
@@ -18,6 +18,7 @@ package com.google.zxing.core.qrcode.decoder;
 
 import com.google.zxing.core.ChecksumException;
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.common.BitMatrix;
 import com.google.zxing.core.common.DecoderResult;
@@ -159,17 +160,30 @@ public final class Decoder {
     int resultOffset = 0;
 
     // Error-correct and copy data blocks together into a stream of bytes
-    for (DataBlock dataBlock : dataBlocks) {
-      byte[] codewordBytes = dataBlock.getCodewords();
-      int numDataCodewords = dataBlock.getNumDataCodewords();
-      correctErrors(codewordBytes, numDataCodewords);
-      for (int i = 0; i < numDataCodewords; i++) {
-        resultBytes[resultOffset++] = codewordBytes[i];
+    DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+    long start = DecodeMetrics.start(metrics);
+    int errorsCorrected = 0;
+    try {
+      for (DataBlock dataBlock : dataBlocks) {
+        byte[] codewordBytes = dataBlock.getCodewords();
+        int numDataCodewords = dataBlock.getNumDataCodewords();
+        errorsCorrected += correctErrors(codewordBytes, numDataCodewords);
+        for (int i = 0; i < numDataCodewords; i++) {
+          resultBytes[resultOffset++] = codewordBytes[i];
+        }
       }
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.ERROR_CORRECTION, start);
     }
+    DecodeMetrics.count(metrics, DecodeMetrics.Counter.ERRORS_CORRECTED, errorsCorrected);
 
     // Decode the contents of that stream of bytes
-    return DecodedBitStreamParser.decode(resultBytes, version, ecLevel, hints);
+    start = DecodeMetrics.start(metrics);
+    try {
+      return DecodedBitStreamParser.decode(resultBytes, version, ecLevel, hints);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.BITSTREAM_PARSING, start);
+    }
   }
 
   /**
@@ -178,9 +192,10 @@ public final class Decoder {
    *
    * @param codewordBytes data and error correction codewords
    * @param numDataCodewords number of codewords that are data bytes
+   * @return number of errors corrected
    * @throws ChecksumException if error correction fails
    */
-  private void correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
+  private int correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
     int numCodewords = codewordBytes.length;
     // First read into an array of ints
     int[] codewordsInts = new int[numCodewords];
@@ -188,8 +203,9 @@ public final class Decoder {
       codewordsInts[i] = codewordBytes[i] & 0xFF;
     }
     int numECCodewords = codewordBytes.length - numDataCodewords;
+    int errorsCorrected;
     try {
-      rsDecoder.decode(codewordsInts, numECCodewords);
+      errorsCorrected = rsDecoder.decode(codewordsInts, numECCodewords);
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
@@ -198,6 +214,7 @@ public final class Decoder {
     for (int i = 0; i < numDataCodewords; i++) {
       codewordBytes[i] = (byte) codewordsInts[i];
     }
+    return errorsCorrected;
   }
 
 }
@@ -17,6 +17,7 @@
 package com.google.zxing.core.qrcode.detector;
 
 import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
 import com.google.zxing.core.FormatException;
 import com.google.zxing.core.NotFoundException;
 import com.google.zxing.core.ResultPoint;
@@ -40,6 +41,7 @@ public class Detector {
 
   private final BitMatrix image;
   private ResultPointCallback resultPointCallback;
+  private DecodeMetrics metrics;
 
   public Detector(BitMatrix image) {
     this.image = image;
@@ -76,6 +78,7 @@ public class Detector {
 
     resultPointCallback = hints == null ? null :
         (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    metrics = DecodeMetrics.fromHints(hints);
 
     FinderPatternFinder finder = new FinderPatternFinder(image, resultPointCallback);
     FinderPatternInfo info = finder.find(hints);
@@ -130,7 +133,13 @@ public class Detector {
     PerspectiveTransform transform =
         createTransform(topLeft, topRight, bottomLeft, alignmentPattern, dimension);
 
-    BitMatrix bits = sampleGrid(image, transform, dimension);
+    long start = DecodeMetrics.start(metrics);
+    BitMatrix bits;
+    try {
+      bits = sampleGrid(image, transform, dimension);
+    } finally {
+      DecodeMetrics.stop(metrics, DecodeMetrics.Stage.SAMPLING, start);
+    }
 
     ResultPoint[] points;
     if (alignmentPattern == null) {
@@ -20,19 +20,16 @@ import java.io.ByteArrayOutputStream;
 import java.util.Map;
 
 import android.graphics.Bitmap;
+import android.graphics.Rect;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
 import android.util.Log;
 
-import com.google.zxing.core.BinaryBitmap;
 import com.google.zxing.core.DecodeHintType;
-import com.google.zxing.core.MultiFormatReader;
 import com.google.zxing.core.PlanarYUVLuminanceSource;
-import com.google.zxing.core.ReaderException;
 import com.google.zxing.core.Result;
-import com.google.zxing.core.common.HybridBinarizer;
 import com.google.zxing.demo.CaptureActivity;
 import com.micen.focusqrcode.R;
 
@@ -40,15 +37,17 @@ final class DecodeHandler extends Handler
 {
 
 	private static final String TAG = DecodeHandler.class.getSimpleName();
+	/** Preview frames come in landscape; the capture screen is portrait. */
+	private static final int FRAME_ROTATION = 90;
 
 	private final CaptureActivity activity;
-	private final MultiFormatReader multiFormatReader;
+	private final FramePipeline framePipeline;
 	private boolean running = true;
 
 	DecodeHandler(CaptureActivity activity, Map<DecodeHintType, Object> hints)
 	{
-		multiFormatReader = new MultiFormatReader();
-		multiFormatReader.setHints(hints);
+		framePipeline = new FramePipeline(hints, FRAME_ROTATION, FramePipeline.DEFAULT_FRAME_BUDGET_MS,
+				FramePipeline.DEFAULT_FRAME_DEADLINE_MS);
 		this.activity = activity;
 	}
 
@@ -67,6 +66,7 @@ final class DecodeHandler extends Handler
 		else if (R.id.quit == message.what)
 		{
 			running = false;
+			Log.i(TAG, "Decode metrics for this session:\n" + framePipeline.getDecodeMetrics().snapshot());
 			Looper.myLooper().quit();
 		}
 
@@ -85,31 +85,15 @@ final class DecodeHandler extends Handler
 		long start = System.currentTimeMillis();
 		Result rawResult = null;
 
-		byte[] rotatedData = new byte[data.length];
-		for (int y = 0; y < height; y++)
+		Rect rect = activity.getCameraManager().getFramingRectInPreview();
+		if (rect != null)
 		{
-			for (int x = 0; x < width; x++)
-				rotatedData[x * height + height - y - 1] = data[x + y * width];
-		}
-		int tmp = width;
-		width = height;
-		height = tmp;
-		PlanarYUVLuminanceSource source = activity.getCameraManager().buildLuminanceSource(rotatedData, width, height);
-
-		if (source != null)
-		{
-			BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-			try
-			{
-				rawResult = multiFormatReader.decodeWithState(bitmap);
-			}
-			catch (ReaderException re)
-			{
-				// continue
-			}
-			finally
+			int collectedParts = framePipeline.getCollectedParts();
+			rawResult = framePipeline.decode(data, width, height, rect.left, rect.top, rect.width(), rect.height());
+			if (rawResult == null && framePipeline.getCollectedParts() > collectedParts)
 			{
-				multiFormatReader.reset();
+				Log.d(TAG, "Collected structured append part " + framePipeline.getCollectedParts() + " of "
+						+ framePipeline.getTotalParts());
 			}
 		}
 
@@ -123,7 +107,7 @@ final class DecodeHandler extends Handler
 			{
 				Message message = Message.obtain(handler, R.id.decode_succeeded, rawResult);
 				Bundle bundle = new Bundle();
-				bundleThumbnail(source, bundle);
+				bundleThumbnail(framePipeline.getFramingSource(), bundle);
 				message.setData(bundle);
 				message.sendToTarget();
 			}
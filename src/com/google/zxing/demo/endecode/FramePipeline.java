@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.demo.endecode;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.zxing.core.DecodeBudget;
+import com.google.zxing.core.DecodeHintType;
+import com.google.zxing.core.DecodeMetrics;
+import com.google.zxing.core.FormatException;
+import com.google.zxing.core.MultiFormatReader;
+import com.google.zxing.core.PlanarYUVLuminanceSource;
+import com.google.zxing.core.ReaderException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultPointCallback;
+import com.google.zxing.core.multi.qrcode.StructuredAppendAssembler;
+
+/**
+ * Turns preview frames into results the way the capture screen does: rotates the frame, decodes
+ * the tracked region if a symbol is being tracked and otherwise searches progressively from the
+ * framing rectangle outwards, and assembles structured append messages. It uses plain Java only,
+ * so that {@link FrameReplay} can run recorded frames through it off the device.
+ *
+ * Not thread-safe; owned by the decode thread.
+ */
+final class FramePipeline
+{
+
+	/** By default, no wider search step is started once this much time has been spent on a frame. */
+	static final long DEFAULT_FRAME_BUDGET_MS = 150L;
+	/** By default, a frame's decode is abandoned once this much time has been spent on it. */
+	static final long DEFAULT_FRAME_DEADLINE_MS = 300L;
+
+	private final int rotation;
+	private final MultiFormatReader multiFormatReader;
+	private final StructuredAppendAssembler structuredAppendAssembler;
+	private final SymbolTracker symbolTracker;
+	private final ProgressiveSearch progressiveSearch;
+	private final DecodeBudget decodeBudget;
+	private final DecodeMetrics decodeMetrics;
+	private byte[] rotatedData;
+	private PlanarYUVLuminanceSource framingSource;
+
+	/**
+	 * @param hints Hints to decode with, or null for the defaults. A {@link DecodeBudget} or
+	 *            {@link DecodeMetrics} in them is used instead of the pipeline's own; such a budget
+	 *            is restarted for each frame, so it replaces {@code frameDeadlineMs}.
+	 * @param rotation Clockwise rotation in degrees, a multiple of 90, that turns a frame upright.
+	 * @param frameBudgetMs Time after which no wider search step is started for a frame.
+	 * @param frameDeadlineMs Time after which a frame's decode is abandoned.
+	 */
+	FramePipeline(Map<DecodeHintType, ?> hints, int rotation, long frameBudgetMs, long frameDeadlineMs)
+	{
+		if (rotation % 90 != 0)
+		{
+			throw new IllegalArgumentException("Rotation is not a multiple of 90 degrees: " + rotation);
+		}
+		this.rotation = (rotation % 360 + 360) % 360;
+		DecodeBudget budget = DecodeBudget.fromHints(hints);
+		decodeBudget = budget != null ? budget : new DecodeBudget(frameDeadlineMs);
+		DecodeMetrics metrics = DecodeMetrics.fromHints(hints);
+		decodeMetrics = metrics != null ? metrics : new DecodeMetrics();
+		Map<DecodeHintType, Object> pipelineHints = new EnumMap<>(DecodeHintType.class);
+		if (hints != null)
+		{
+			pipelineHints.putAll(hints);
+		}
+		pipelineHints.put(DecodeHintType.DECODE_BUDGET, decodeBudget);
+		pipelineHints.put(DecodeHintType.DECODE_METRICS, decodeMetrics);
+		// Regions are decoded, so the points the callback reports are mapped back to the framing rectangle
+		TranslatingResultPointCallback pointCallback = null;
+		ResultPointCallback callback = (ResultPointCallback) pipelineHints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+		if (callback != null)
+		{
+			pointCallback = new TranslatingResultPointCallback(callback);
+			pipelineHints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, pointCallback);
+		}
+		multiFormatReader = new MultiFormatReader();
+		multiFormatReader.setHints(pipelineHints);
+		structuredAppendAssembler = new StructuredAppendAssembler();
+		symbolTracker = new SymbolTracker(pointCallback);
+		progressiveSearch = new ProgressiveSearch(frameBudgetMs, pointCallback);
+	}
+
+	/**
+	 * Decodes a frame. The framing rectangle is given in the coordinates of the rotated frame.
+	 *
+	 * @param data The YUV preview frame. Only its luminance plane is read.
+	 * @param width The width of the preview frame, before rotation.
+	 * @param height The height of the preview frame, before rotation.
+	 * @param framingLeft The left edge of the framing rectangle.
+	 * @param framingTop The top edge of the framing rectangle.
+	 * @param framingWidth The width of the framing rectangle.
+	 * @param framingHeight The height of the framing rectangle.
+	 * @return The result, with points relative to the framing rectangle, or null if there is
+	 *         none in this frame, including when only part of a structured append message was
+	 *         read.
+	 */
+	Result decode(byte[] data, int width, int height, int framingLeft, int framingTop, int framingWidth,
+			int framingHeight)
+	{
+		decodeBudget.restart();
+		Result rawResult = null;
+
+		byte[] frame = rotate(data, width, height);
+		if (rotation == 90 || rotation == 270)
+		{
+			int tmp = width;
+			width = height;
+			height = tmp;
+		}
+		framingSource = new PlanarYUVLuminanceSource(frame, width, height, framingLeft, framingTop, framingWidth,
+				framingHeight, false);
+
+		if (symbolTracker.isTracking())
+		{
+			try
+			{
+				rawResult = symbolTracker.decode(framingSource, multiFormatReader);
+			}
+			catch (ReaderException re)
+			{
+				// continue
+			}
+		}
+		if (rawResult == null && !symbolTracker.isTracking())
+		{
+			try
+			{
+				rawResult = progressiveSearch.decode(
+						new PlanarYUVLuminanceSource(frame, width, height, 0, 0, width, height, false), framingLeft,
+						framingTop, framingWidth, framingHeight, multiFormatReader);
+				symbolTracker.track(rawResult, framingSource);
+			}
+			catch (ReaderException re)
+			{
+				// continue
+			}
+		}
+
+		if (rawResult != null)
+		{
+			// Parts of a structured append message are kept until the whole message has been read
+			if (structuredAppendAssembler.isCollected(rawResult))
+			{
+				// Look for the other parts elsewhere in the frame
+				symbolTracker.reset();
+				rawResult = null;
+			}
+			else
+			{
+				try
+				{
+					rawResult = structuredAppendAssembler.add(rawResult);
+				}
+				catch (FormatException fe)
+				{
+					// An inconsistent structured append header; not a message on its own either
+					rawResult = null;
+				}
+			}
+		}
+		return rawResult;
+	}
+
+	/**
+	 * Rotates the luminance plane of a frame into a buffer reused from frame to frame, which the
+	 * sources of the previous frame stop being valid with.
+	 */
+	private byte[] rotate(byte[] data, int width, int height)
+	{
+		if (rotation == 0)
+		{
+			return data;
+		}
+		int size = width * height;
+		if (rotatedData == null || rotatedData.length < size)
+		{
+			rotatedData = new byte[size];
+		}
+		byte[] rotated = rotatedData;
+		for (int y = 0; y < height; y++)
+		{
+			int offset = y * width;
+			switch (rotation)
+			{
+			case 90:
+				for (int x = 0; x < width; x++)
+					rotated[x * height + height - y - 1] = data[offset + x];
+				break;
+			case 180:
+				System.arraycopy(data, offset, rotated, size - offset - width, width);
+				reverse(rotated, size - offset - width, width);
+				break;
+			default:
+				for (int x = 0; x < width; x++)
+					rotated[(width - x - 1) * height + y] = data[offset + x];
+				break;
+			}
+		}
+		return rotated;
+	}
+
+	private static void reverse(byte[] array, int offset, int length)
+	{
+		for (int i = offset, j = offset + length - 1; i < j; i++, j--)
+		{
+			byte tmp = array[i];
+			array[i] = array[j];
+			array[j] = tmp;
+		}
+	}
+
+	/**
+	 * @return The framing rectangle of the last frame decoded, valid until the next one is.
+	 */
+	PlanarYUVLuminanceSource getFramingSource()
+	{
+		return framingSource;
+	}
+
+	/**
+	 * @return Parts of the structured append message being read that have been collected so far.
+	 */
+	int getCollectedParts()
+	{
+		return structuredAppendAssembler.getCollectedParts();
+	}
+
+	int getTotalParts()
+	{
+		return structuredAppendAssembler.getTotalParts();
+	}
+
+	DecodeMetrics getDecodeMetrics()
+	{
+		return decodeMetrics;
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright (C) 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.demo.endecode;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.zxing.core.Result;
+
+/**
+ * Replays recorded preview frames through {@link FramePipeline}, as the capture screen would
+ * decode them, and reports the decode rate, latency percentiles and memory allocated per frame.
+ * It runs on a plain JVM, so that changes to decoding can be measured on any machine:
+ *
+ * <pre>
+ * java com.google.zxing.demo.endecode.FrameReplay [--passes=N] [--budget=MS] [--deadline=MS] width height rotation framing frames...
+ * </pre>
+ *
+ * <ul>
+ * <li>{@code width} and {@code height} are those of the recorded frames, before rotation;</li>
+ * <li>{@code rotation} is the clockwise rotation in degrees that turns them upright, 90 on the
+ * capture screen;</li>
+ * <li>{@code framing} is the framing rectangle in the rotated frame as
+ * {@code left,top,width,height}, or {@code -} for the whole frame;</li>
+ * <li>{@code frames} are files of one or more NV21 frames each, stored back to back, or
+ * directories of such files, which are replayed in name order.</li>
+ * </ul>
+ *
+ * Frames are replayed {@code N} times, 1 by default, each time through a new pipeline. Only the
+ * last pass is reported, so earlier ones can warm up the JIT compiler. {@code --budget} and
+ * {@code --deadline} set the pipeline's per-frame search budget and deadline in milliseconds,
+ * which default to those of the capture screen.
+ */
+public final class FrameReplay
+{
+
+	private final int width;
+	private final int height;
+	private final int rotation;
+	private final int[] framing;
+	private final List<File> files;
+	private final long frameBudgetMs;
+	private final long frameDeadlineMs;
+
+	private FrameReplay(int width, int height, int rotation, int[] framing, List<File> files, long frameBudgetMs,
+			long frameDeadlineMs)
+	{
+		this.width = width;
+		this.height = height;
+		this.rotation = rotation;
+		this.framing = framing;
+		this.files = files;
+		this.frameBudgetMs = frameBudgetMs;
+		this.frameDeadlineMs = frameDeadlineMs;
+	}
+
+	public static void main(String[] args) throws IOException
+	{
+		int passes = 1;
+		long frameBudgetMs = FramePipeline.DEFAULT_FRAME_BUDGET_MS;
+		long frameDeadlineMs = FramePipeline.DEFAULT_FRAME_DEADLINE_MS;
+		int first = 0;
+		for (; first < args.length && args[first].startsWith("--"); first++)
+		{
+			String arg = args[first];
+			if (arg.startsWith("--passes="))
+			{
+				passes = Integer.parseInt(arg.substring("--passes=".length()));
+			}
+			else if (arg.startsWith("--budget="))
+			{
+				frameBudgetMs = Long.parseLong(arg.substring("--budget=".length()));
+			}
+			else if (arg.startsWith("--deadline="))
+			{
+				frameDeadlineMs = Long.parseLong(arg.substring("--deadline=".length()));
+			}
+			else
+			{
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+		if (args.length - first < 5 || passes < 1 || frameBudgetMs < 0 || frameDeadlineMs < 0)
+		{
+			System.err.println("Usage: FrameReplay [--passes=N] [--budget=MS] [--deadline=MS] width height rotation "
+					+ "left,top,width,height|- frames...");
+			System.exit(1);
+			return;
+		}
+		int width = Integer.parseInt(args[first]);
+		int height = Integer.parseInt(args[first + 1]);
+		int rotation = Integer.parseInt(args[first + 2]);
+		boolean upright = rotation % 180 == 0;
+		int[] framing;
+		if ("-".equals(args[first + 3]))
+		{
+			framing = new int[] { 0, 0, upright ? width : height, upright ? height : width };
+		}
+		else
+		{
+			String[] values = args[first + 3].split(",");
+			if (values.length != 4)
+			{
+				throw new IllegalArgumentException("Framing rectangle is not left,top,width,height: " + args[first + 3]);
+			}
+			framing = new int[4];
+			for (int i = 0; i < 4; i++)
+			{
+				framing[i] = Integer.parseInt(values[i].trim());
+			}
+		}
+		List<File> files = new ArrayList<>();
+		for (int i = first + 4; i < args.length; i++)
+		{
+			addFiles(new File(args[i]), files);
+		}
+
+		FrameReplay replay = new FrameReplay(width, height, rotation, framing, files, frameBudgetMs, frameDeadlineMs);
+		for (int pass = 1; pass < passes; pass++)
+		{
+			replay.replay(null);
+		}
+		Report report = new Report();
+		replay.replay(report);
+		System.out.print(report);
+	}
+
+	private static void addFiles(File file, List<File> files) throws IOException
+	{
+		if (file.isDirectory())
+		{
+			File[] children = file.listFiles();
+			if (children == null)
+			{
+				throw new IOException("Can't list " + file);
+			}
+			Arrays.sort(children);
+			for (File child : children)
+			{
+				addFiles(child, files);
+			}
+		}
+		else if (file.isFile())
+		{
+			files.add(file);
+		}
+		else
+		{
+			throw new IOException("No such file: " + file);
+		}
+	}
+
+	/**
+	 * @param report Where to record each frame, or null to only run them.
+	 */
+	private void replay(Report report) throws IOException
+	{
+		FramePipeline pipeline = new FramePipeline(null, rotation, frameBudgetMs, frameDeadlineMs);
+		// Preview frames are NV21: the luminance plane followed by subsampled chrominance
+		byte[] frame = new byte[width * height * 3 / 2];
+		for (File file : files)
+		{
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try
+			{
+				while (readFrame(in, frame, file))
+				{
+					long allocatedBefore = AllocationCounter.get();
+					long start = System.nanoTime();
+					Result result = pipeline.decode(frame, width, height, framing[0], framing[1], framing[2], framing[3]);
+					long nanos = System.nanoTime() - start;
+					long allocated = AllocationCounter.get() - allocatedBefore;
+					if (report != null)
+					{
+						report.add(result != null, nanos, allocated);
+					}
+				}
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+		if (report != null)
+		{
+			report.metrics = pipeline.getDecodeMetrics().snapshot().toString();
+		}
+	}
+
+	/**
+	 * @return false if the file has no more frames.
+	 */
+	private static boolean readFrame(DataInputStream in, byte[] frame, File file) throws IOException
+	{
+		int first = in.read();
+		if (first < 0)
+		{
+			return false;
+		}
+		frame[0] = (byte) first;
+		try
+		{
+			in.readFully(frame, 1, frame.length - 1);
+		}
+		catch (EOFException eofe)
+		{
+			throw new IOException(file + " does not hold a whole number of " + frame.length + " byte frames");
+		}
+		return true;
+	}
+
+	private static final class Report
+	{
+
+		private long[] latencies = new long[64];
+		private int frames;
+		private int decoded;
+		private long allocated;
+		private String metrics;
+
+		void add(boolean found, long nanos, long allocatedBytes)
+		{
+			if (frames == latencies.length)
+			{
+				latencies = Arrays.copyOf(latencies, frames * 2);
+			}
+			latencies[frames++] = nanos;
+			if (found)
+			{
+				decoded++;
+			}
+			allocated += allocatedBytes;
+		}
+
+		/**
+		 * @return The latency that the given percentage of frames took at most, in milliseconds.
+		 */
+		private double percentile(long[] sorted, int percent)
+		{
+			int rank = (int) Math.ceil(percent / 100.0 * frames);
+			return sorted[Math.max(0, rank - 1)] / 1000000.0;
+		}
+
+		@Override
+		public String toString()
+		{
+			StringBuilder result = new StringBuilder();
+			result.append("Frames: ").append(frames).append('\n');
+			if (frames == 0)
+			{
+				return result.toString();
+			}
+			result.append("Decoded: ").append(decoded)
+					.append(String.format(" (%.1f%%)", 100.0 * decoded / frames)).append('\n');
+			long[] sorted = Arrays.copyOf(latencies, frames);
+			Arrays.sort(sorted);
+			result.append(String.format("Latency ms: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f", percentile(sorted, 50),
+					percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100))).append('\n');
+			result.append("Allocated per frame: ");
+			if (AllocationCounter.isSupported())
+			{
+				result.append(allocated / frames / 1024).append(" KB");
+			}
+			else
+			{
+				result.append("not measurable on this VM");
+			}
+			result.append('\n');
+			result.append(metrics);
+			return result.toString();
+		}
+
+	}
+
+	/**
+	 * Reads the bytes the current thread has allocated, where the VM reports it. Looked up
+	 * reflectively since the management API is missing on Android, which this is built for too.
+	 */
+	private static final class AllocationCounter
+	{
+
+		private static final Object THREAD_BEAN;
+		private static final Method GET_THREAD_ALLOCATED_BYTES;
+
+		static
+		{
+			Object bean = null;
+			Method method = null;
+			try
+			{
+				bean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean")
+						.invoke(null);
+				method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes",
+						long.class);
+				if (!method.getDeclaringClass().isInstance(bean))
+				{
+					method = null;
+				}
+			}
+			catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException
+					| RuntimeException e)
+			{
+				method = null;
+			}
+			THREAD_BEAN = bean;
+			GET_THREAD_ALLOCATED_BYTES = method;
+		}
+
+		static boolean isSupported()
+		{
+			return GET_THREAD_ALLOCATED_BYTES != null;
+		}
+
+		/**
+		 * @return Bytes allocated by the current thread so far, or 0 if that is not measurable.
+		 */
+		static long get()
+		{
+			if (GET_THREAD_ALLOCATED_BYTES == null)
+			{
+				return 0L;
+			}
+			try
+			{
+				return (Long) GET_THREAD_ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+			}
+			catch (IllegalAccessException | InvocationTargetException e)
+			{
+				return 0L;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.demo.endecode;
+
+import com.google.zxing.core.BinaryBitmap;
+import com.google.zxing.core.DownsampledLuminanceSource;
+import com.google.zxing.core.LuminanceSource;
+import com.google.zxing.core.MultiFormatReader;
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.PlanarYUVLuminanceSource;
+import com.google.zxing.core.ReaderException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultPoint;
+import com.google.zxing.core.common.HybridBinarizer;
+
+/**
+ * Searches a preview frame in widening steps, stopping at the first one that finds a symbol:
+ * <ol>
+ * <li>the centre of the framing rectangle, half its width and height,</li>
+ * <li>the whole framing rectangle,</li>
+ * <li>the whole preview frame at half resolution; only on idle frames, that is after
+ * {@link #IDLE_FRAMES} consecutive frames without a result.</li>
+ * </ol>
+ * No further step is started once the frame's time budget is used up. Well-aimed scans are
+ * found in the first, cheapest step, while off-centre symbols are still found eventually.
+ *
+ * Points of the returned {@link Result}, and those reported through the result point callback,
+ * are relative to the framing rectangle, like those of a plain decode of the framing rectangle.
+ *
+ * Not thread-safe; owned by the decode thread.
+ */
+final class ProgressiveSearch
+{
+
+	private static final int IDLE_FRAMES = 3;
+
+	private final long frameBudgetNanos;
+	private final TranslatingResultPointCallback pointCallback;
+	private int framesWithoutResult;
+
+	/**
+	 * @param frameBudgetMs Time after which no further search step is started for a frame.
+	 * @param pointCallback The result point callback in the reader's hints, or null if none.
+	 */
+	ProgressiveSearch(long frameBudgetMs, TranslatingResultPointCallback pointCallback)
+	{
+		this.frameBudgetNanos = frameBudgetMs * 1000000L;
+		this.pointCallback = pointCallback;
+	}
+
+	/**
+	 * @param frame The whole preview frame.
+	 * @param framingLeft The left edge of the framing rectangle within the frame.
+	 * @param framingTop The top edge of the framing rectangle within the frame.
+	 * @param framingWidth The width of the framing rectangle.
+	 * @param framingHeight The height of the framing rectangle.
+	 * @param reader The reader to decode with. It is reset after each attempt.
+	 * @return The result, with points relative to the framing rectangle.
+	 * @throws ReaderException if no symbol was found in this frame.
+	 */
+	Result decode(PlanarYUVLuminanceSource frame, int framingLeft, int framingTop, int framingWidth,
+			int framingHeight, MultiFormatReader reader) throws ReaderException
+	{
+		long start = System.nanoTime();
+		try
+		{
+			Result result = doDecode(frame, framingLeft, framingTop, framingWidth, framingHeight, reader, start);
+			framesWithoutResult = 0;
+			return result;
+		}
+		catch (ReaderException re)
+		{
+			framesWithoutResult++;
+			throw re;
+		}
+	}
+
+	private Result doDecode(PlanarYUVLuminanceSource frame, int framingLeft, int framingTop, int framingWidth,
+			int framingHeight, MultiFormatReader reader, long start) throws ReaderException
+	{
+		LuminanceSource framing = frame.crop(framingLeft, framingTop, framingWidth, framingHeight);
+
+		int centreLeft = framingWidth / 4;
+		int centreTop = framingHeight / 4;
+		try
+		{
+			LuminanceSource centre = framing.crop(centreLeft, centreTop, framingWidth / 2, framingHeight / 2);
+			return decodeRegion(centre, reader, pointCallback, 1, centreLeft, centreTop);
+		}
+		catch (ReaderException re)
+		{
+			// widen
+		}
+
+		if (System.nanoTime() - start > frameBudgetNanos)
+		{
+			throw NotFoundException.getNotFoundInstance();
+		}
+		try
+		{
+			return decodeRegion(framing, reader, pointCallback, 1, 0, 0);
+		}
+		catch (ReaderException re)
+		{
+			// widen
+		}
+
+		if (framesWithoutResult + 1 < IDLE_FRAMES || System.nanoTime() - start > frameBudgetNanos)
+		{
+			throw NotFoundException.getNotFoundInstance();
+		}
+		// Counting restarts whether or not the reduced frame yields anything
+		framesWithoutResult = -1;
+		return decodeRegion(new DownsampledLuminanceSource(frame), reader, pointCallback, 2, -framingLeft, -framingTop);
+	}
+
+	/**
+	 * Decodes a scaled and offset copy of an image, with result points mapped back to the image.
+	 *
+	 * @param pointCallback The result point callback in the reader's hints, or null if none. Its
+	 *            transform is set to map points back too.
+	 */
+	static Result decodeRegion(LuminanceSource source, MultiFormatReader reader,
+			TranslatingResultPointCallback pointCallback, int scale, int xOffset, int yOffset) throws ReaderException
+	{
+		if (pointCallback != null)
+		{
+			pointCallback.setTransform(scale, xOffset, yOffset);
+		}
+		BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
+		try
+		{
+			return translateResultPoints(reader.decodeWithState(bitmap), scale, xOffset, yOffset);
+		}
+		finally
+		{
+			reader.reset();
+		}
+	}
+
+	/**
+	 * Maps result points found in a scaled and offset copy of an image back to the image.
+	 */
+	static Result translateResultPoints(Result result, int scale, int xOffset, int yOffset)
+	{
+		ResultPoint[] oldResultPoints = result.getResultPoints();
+		if (oldResultPoints == null || (scale == 1 && xOffset == 0 && yOffset == 0))
+		{
+			return result;
+		}
+		ResultPoint[] newResultPoints = new ResultPoint[oldResultPoints.length];
+		for (int i = 0; i < oldResultPoints.length; i++)
+		{
+			ResultPoint oldPoint = oldResultPoints[i];
+			if (oldPoint != null)
+			{
+				newResultPoints[i] = new ResultPoint(oldPoint.getX() * scale + xOffset,
+						oldPoint.getY() * scale + yOffset);
+			}
+		}
+		Result newResult = new Result(result.getText(), result.getRawBytes(), newResultPoints,
+				result.getBarcodeFormat(), result.getTimestamp());
+		newResult.putAllMetadata(result.getResultMetadata());
+		return newResult;
+	}
+
+}
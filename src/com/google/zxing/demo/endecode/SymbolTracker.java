@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.demo.endecode;
+
+import com.google.zxing.core.LuminanceSource;
+import com.google.zxing.core.MultiFormatReader;
+import com.google.zxing.core.NotFoundException;
+import com.google.zxing.core.ReaderException;
+import com.google.zxing.core.Result;
+import com.google.zxing.core.ResultPoint;
+
+/**
+ * Remembers where the last symbol was found and decodes the next frames from a small region
+ * around that location only. Binarization and detection then run on a fraction of the frame.
+ * The caller goes back to a full search only once the symbol has not been found in the tracked
+ * region for {@link #MAX_MISSES} consecutive frames, so a single motion-blurred frame does not
+ * lose the track.
+ *
+ * Points of the returned {@link Result}, and those reported through the result point callback
+ * while tracking, are relative to the framing rectangle.
+ *
+ * Not thread-safe; owned by the decode thread.
+ */
+final class SymbolTracker
+{
+
+	private static final int MAX_MISSES = 3;
+	private static final int MIN_MARGIN = 16;
+
+	private final TranslatingResultPointCallback pointCallback;
+	private int left;
+	private int top;
+	private int width;
+	private int height;
+	private int misses = MAX_MISSES;
+
+	/**
+	 * @param pointCallback The result point callback in the reader's hints, or null if none.
+	 */
+	SymbolTracker(TranslatingResultPointCallback pointCallback)
+	{
+		this.pointCallback = pointCallback;
+	}
+
+	/**
+	 * Decodes a frame from the tracked region. Only callable if {@link #isTracking()} is true.
+	 *
+	 * @param source The framing-rectangle source of the frame.
+	 * @param reader The reader to decode with. It is reset after each attempt.
+	 * @return The result, with points relative to {@code source}.
+	 * @throws ReaderException if no symbol was found in the tracked region. If this loses the
+	 *             track, the caller should search the frame again and pass any result to
+	 *             {@link #track(Result, LuminanceSource)}.
+	 */
+	Result decode(LuminanceSource source, MultiFormatReader reader) throws ReaderException
+	{
+		if (!source.isCropSupported() || left + width > source.getWidth() || top + height > source.getHeight())
+		{
+			reset();
+			throw NotFoundException.getNotFoundInstance();
+		}
+		try
+		{
+			LuminanceSource region = source.crop(left, top, width, height);
+			Result result = ProgressiveSearch.decodeRegion(region, reader, pointCallback, 1, left, top);
+			track(result, source);
+			return result;
+		}
+		catch (ReaderException re)
+		{
+			misses++;
+			throw re;
+		}
+	}
+
+	boolean isTracking()
+	{
+		return misses < MAX_MISSES;
+	}
+
+	void reset()
+	{
+		misses = MAX_MISSES;
+	}
+
+	/**
+	 * Sets the tracked region to the bounding box of the result points, grown by half its larger
+	 * side in each direction so that the whole symbol and some movement fit in it.
+	 */
+	void track(Result result, LuminanceSource source)
+	{
+		ResultPoint[] points = result.getResultPoints();
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -1.0f;
+		float maxY = -1.0f;
+		if (points != null)
+		{
+			for (ResultPoint point : points)
+			{
+				if (point == null)
+				{
+					continue;
+				}
+				minX = Math.min(minX, point.getX());
+				minY = Math.min(minY, point.getY());
+				maxX = Math.max(maxX, point.getX());
+				maxY = Math.max(maxY, point.getY());
+			}
+		}
+		if (maxX < 0.0f)
+		{
+			// Nothing to track, e.g. a structured append message or a pure barcode
+			reset();
+			return;
+		}
+		int margin = Math.max(MIN_MARGIN, (int) (Math.max(maxX - minX, maxY - minY) / 2.0f));
+		left = Math.max(0, (int) minX - margin);
+		top = Math.max(0, (int) minY - margin);
+		width = Math.min(source.getWidth(), (int) maxX + margin + 1) - left;
+		height = Math.min(source.getHeight(), (int) maxY + margin + 1) - top;
+		misses = width > 0 && height > 0 ? 0 : MAX_MISSES;
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.demo.endecode;
+
+import com.google.zxing.core.ResultPoint;
+import com.google.zxing.core.ResultPointCallback;
+
+/**
+ * Passes on possible result points found in a scaled and offset copy of an image, mapped back to
+ * the image the same way {@link ProgressiveSearch#translateResultPoints} maps the points of a
+ * result. The reader keeps one instance in its hints, so the transform is set before each decode.
+ */
+final class TranslatingResultPointCallback implements ResultPointCallback
+{
+
+	private final ResultPointCallback delegate;
+	private int scale = 1;
+	private int xOffset;
+	private int yOffset;
+
+	TranslatingResultPointCallback(ResultPointCallback delegate)
+	{
+		this.delegate = delegate;
+	}
+
+	void setTransform(int scale, int xOffset, int yOffset)
+	{
+		this.scale = scale;
+		this.xOffset = xOffset;
+		this.yOffset = yOffset;
+	}
+
+	@Override
+	public void foundPossibleResultPoint(ResultPoint point)
+	{
+		if (scale != 1 || xOffset != 0 || yOffset != 0)
+		{
+			point = new ResultPoint(point.getX() * scale + xOffset, point.getY() * scale + yOffset);
+		}
+		delegate.foundPossibleResultPoint(point);
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.core.common;
+
+import java.nio.charset.Charset;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests {@link StringUtils#guessEncoding(byte[], java.util.Map)}, in particular that GB2312 does
+ * not take over text that reads as Shift_JIS half-width katakana or as ISO-8859-1.
+ */
+public final class StringUtilsTestCase extends Assert {
+
+  @Test
+  public void testShiftJISKatakana() {
+    // Half-width "katakana", "tesuto"
+    doTest(bytes(0xB6, 0xC0, 0xB6, 0xC5), StringUtils.SHIFT_JIS);
+    doTest(bytes(0xC3, 0xBD, 0xC4), StringUtils.SHIFT_JIS);
+    // Half-width "aiueoka", "katakana-"
+    doTest(bytes(0xB1, 0xB2, 0xB3, 0xB4, 0xB5, 0xB6), StringUtils.SHIFT_JIS);
+    doTest(bytes(0xB6, 0xC0, 0xB6, 0xC5, 0xB0), StringUtils.SHIFT_JIS);
+  }
+
+  @Test
+  public void testLatin1() {
+    // "Cremes", "Creme", with e grave
+    doTest(bytes('C', 'r', 0xE8, 'm', 'e', 's'), "ISO8859_1");
+    doTest(bytes('C', 'r', 0xE8, 'm', 'e'), "ISO8859_1");
+    // a grave, e acute, i circumflex, o tilde and u umlaut
+    doTest(bytes(0xE0, 0xE9, 0xEE, 0xF5), "ISO8859_1");
+    doTest(bytes(0xE0, 0xE9, 0xEE, 0xF5, 0xFC), "ISO8859_1");
+  }
+
+  @Test
+  public void testGB2312() {
+    // "zhongwen bianma", then with a digit
+    doTest(bytes(0xD6, 0xD0, 0xCE, 0xC4, 0xB1, 0xE0, 0xC2, 0xEB), StringUtils.GB2312);
+    doTest(bytes(0xD6, 0xD0, 0xCE, 0xC4, 0xB1, 0xE0, 0xC2, 0xEB, '1'), StringUtils.GB2312);
+    // "huanying guanglin, xiexie", then with an exclamation mark
+    doTest(bytes(0xBB, 0xB6, 0xD3, 0xAD, 0xB9, 0xE2, 0xC1, 0xD9, 0xA3, 0xAC, 0xD0, 0xBB, 0xD0, 0xBB),
+        StringUtils.GB2312);
+    doTest(bytes(0xBB, 0xB6, 0xD3, 0xAD, 0xB9, 0xE2, 0xC1, 0xD9, 0xA3, 0xAC, 0xD0, 0xBB, 0xD0, 0xBB, '!'),
+        StringUtils.GB2312);
+  }
+
+  private static void doTest(byte[] bytes, String charsetName) {
+    String guessedName = StringUtils.guessEncoding(bytes, null);
+    assertEquals(charsetName, guessedName);
+    // The guess must also be able to decode them
+    assertNotNull(new String(bytes, Charset.forName(guessedName)));
+  }
+
+  private static byte[] bytes(int... ints) {
+    byte[] bytes = new byte[ints.length];
+    for (int i = 0; i < ints.length; i++) {
+      bytes[i] = (byte) ints[i];
+    }
+    return bytes;
+  }
+
+}